@@ -0,0 +1,262 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.jline.reader.ParsedLine;
+import org.jline.reader.impl.DefaultParser;
+import org.jline.terminal.impl.DumbTerminal;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the shell's commands headlessly against an embedded broker holding a topic preloaded with
+ * integration.records records, asserting on what they print and recording how long they took in the
+ * report at integration.report.  Setting integration.maxSlowdown, e.g. to 0.25, fails the run when a
+ * command got more than that much slower than in the previous report.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CommandsIT {
+
+    static final String TOPIC = "load";
+    static final int PARTITIONS = 8;
+    static final int ADMIN_RUNS = 50;
+
+    final long records = Long.getLong( "integration.records", 1_000_000 );
+    final TerminalOutput output = new TerminalOutput();
+
+    EmbeddedKafka kafka;
+    App app;
+    ThroughputReport report;
+    Path workDir;
+
+    @BeforeAll
+    void start() throws Exception {
+        kafka = new EmbeddedKafka();
+        workDir = Files.createTempDirectory( "kafka-shell-it-output" );
+        report = new ThroughputReport( Paths.get( System.getProperty( "integration.report", "build/reports/integration/throughput.csv" ) ) );
+
+        try( AdminClient admin = AdminClient.create( kafka.getClientProperties() ) ) {
+            admin.createTopics( Collections.singleton( new NewTopic( TOPIC, PARTITIONS, (short) 1 ) ) ).all().get();
+        }
+        preload();
+
+        app = new App();
+        app.terminal = new DumbTerminal( new ByteArrayInputStream( new byte[0] ), output );
+        app.addSession( new ClusterSession( "it", kafka.getClientProperties() ) );
+        app.connectAsync().join();
+    }
+
+    private void preload() throws Exception {
+        Properties props = kafka.getClientProperties();
+        props.put( ProducerConfig.LINGER_MS_CONFIG, 20 );
+        props.put( ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024 );
+        props.put( ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4" );
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        try( Producer<byte[],byte[]> producer = new KafkaProducer<>( props, new ByteArraySerializer(), new ByteArraySerializer() ) ) {
+            for( long i = 0; i < records; i++ ) {
+                byte[] key = ("key-" + i).getBytes( StandardCharsets.UTF_8 );
+                byte[] value = ("{\"id\":" + i + ",\"payload\":\"record number " + i + "\"}").getBytes( StandardCharsets.UTF_8 );
+                producer.send( new ProducerRecord<>( TOPIC, (int) (i % PARTITIONS), key, value ), (metadata, e) -> {
+                    if( e != null ) failure.compareAndSet( null, e );
+                });
+            }
+        }
+        if( failure.get() != null ) throw failure.get();
+        report.record( "preload", records, System.nanoTime() - start );
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        try {
+            if( app != null ) app.disconnect();
+            if( report != null ) report.write( new PrintWriter( new OutputStreamWriter( System.out, StandardCharsets.UTF_8 ) ) );
+        } finally {
+            if( kafka != null ) kafka.close();
+            if( workDir != null ) {
+                try( Stream<Path> files = Files.walk( workDir ) ) {
+                    files.sorted( Comparator.reverseOrder() ).map( Path::toFile ).forEach( File::delete );
+                }
+            }
+        }
+        String maxSlowdown = System.getProperty( "integration.maxSlowdown" );
+        if( maxSlowdown != null && !maxSlowdown.isEmpty() ) {
+            List<String> regressions = report.getRegressions( Double.parseDouble( maxSlowdown ) );
+            assertTrue( regressions.isEmpty(), "Slower than the previous run: " + regressions );
+        }
+    }
+
+    /**
+     * Runs a line the way the shell would and records how long it took.
+     *
+     * @return what the command printed.
+     */
+    private String run(String command, long recordsHandled, String line) throws InterruptedException {
+        ParsedLine pl = new DefaultParser().parse( line, 0 );
+        ShellCommand cmd = app.findCommand( pl.word() );
+        assertNotNull( cmd, "Unknown command " + pl.word() );
+        output.reset();
+        long start = System.nanoTime();
+        boolean succeeded = app.execute( cmd, pl );
+        long nanos = System.nanoTime() - start;
+        app.terminal.writer().flush();
+        String printed = new String( output.toByteArray(), StandardCharsets.UTF_8 );
+        assertTrue( succeeded, line + " failed: " + printed );
+        report.record( command, recordsHandled, nanos );
+        return printed;
+    }
+
+    /**
+     * Runs a line that's expected to fail, e.g. so a script would exit with an error.
+     *
+     * @return what the command printed.
+     */
+    private String runExpectingFailure(String line) throws InterruptedException {
+        ParsedLine pl = new DefaultParser().parse( line, 0 );
+        output.reset();
+        boolean succeeded = app.execute( app.findCommand( pl.word() ), pl );
+        app.terminal.writer().flush();
+        String printed = new String( output.toByteArray(), StandardCharsets.UTF_8 );
+        assertFalse( succeeded, line + " should have failed: " + printed );
+        return printed;
+    }
+
+    @Test
+    @Order(1)
+    void listTopics() throws InterruptedException {
+        for( int i = 0; i < ADMIN_RUNS; i++ ) {
+            String printed = run( "list", 0, "list topics" );
+            assertTrue( printed.contains( TOPIC ), printed );
+        }
+    }
+
+    @Test
+    @Order(2)
+    void describeTopic() throws InterruptedException {
+        for( int i = 0; i < ADMIN_RUNS; i++ ) {
+            String printed = run( "describe", 0, "describe topic " + TOPIC );
+            assertTrue( printed.contains( TOPIC + " (partitions=" + PARTITIONS + ")" ), printed );
+        }
+    }
+
+    @Test
+    @Order(3)
+    void consumeEverything() throws Exception {
+        File file = workDir.resolve( "consumed.txt" ).toFile();
+        String printed = run( "consume", records, "consume " + TOPIC + " offset beginning to-offset " + Long.MAX_VALUE + " output " + file );
+
+        long lines = 0;
+        Set<Long> seen = new HashSet<>();
+        try( BufferedReader reader = Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 ) ) {
+            String line;
+            while( (line = reader.readLine()) != null ) {
+                lines++;
+                // spot check the contents, holding every id of a million records would be most of the heap
+                if( lines % 1000 == 0 ) {
+                    assertTrue( line.startsWith( "{\"id\":" ), line );
+                    assertTrue( seen.add( Long.parseLong( line.substring( 6, line.indexOf( ',' ) ) ) ), "Duplicate " + line );
+                }
+            }
+        }
+        assertEquals( records, lines, printed );
+    }
+
+    @Test
+    @Order(4)
+    void consumeFromOnePartition() throws Exception {
+        long perPartition = records / PARTITIONS;
+        File file = workDir.resolve( "partition.txt" ).toFile();
+        run( "consume-partition", perPartition, "consume " + TOPIC + " partition 3 offset beginning to-offset " + Long.MAX_VALUE + " output " + file );
+
+        try( Stream<String> lines = Files.lines( file.toPath(), StandardCharsets.UTF_8 ) ) {
+            assertEquals( perPartition, lines.filter( line -> Long.parseLong( line.substring( 6, line.indexOf( ',' ) ) ) % PARTITIONS == 3 ).count() );
+        }
+    }
+
+    @Test
+    @Order(5)
+    void consumeToTheTerminalLeavesItOpen() throws InterruptedException {
+        String printed = run( "consume-terminal", 100, "consume " + TOPIC + " partition 0 offset beginning max-messages 100" );
+        assertTrue( printed.contains( "Received 100 messages" ), printed );
+        assertFalse( output.closed, "consume closed the terminal's output" );
+
+        printed = run( "list", 0, "list topics" );
+        assertTrue( printed.contains( TOPIC ), printed );
+    }
+
+    @Test
+    @Order(6)
+    void purgeHalf() throws Exception {
+        long before = records / PARTITIONS / 2;
+        String printed = run( "purge", before * PARTITIONS, "purge " + TOPIC + " before " + before );
+        assertTrue( printed.contains( String.format("Purged %,d records from %d of %d partitions of %s", before * PARTITIONS, PARTITIONS, PARTITIONS, TOPIC) ), printed );
+
+        List<TopicPartition> partitions = new ArrayList<>();
+        for( int p = 0; p < PARTITIONS; p++ ) partitions.add( new TopicPartition( TOPIC, p ) );
+        Map<TopicPartition,Long> earliest = ConsumerLag.listOffsets( app.getAdmin(), partitions, OffsetSpec.earliest() ).get()
+                .entrySet().stream().collect(Collectors.toMap( Map.Entry::getKey, e -> e.getValue().offset() ));
+        partitions.forEach( tp -> assertEquals( before, earliest.get( tp ), tp.toString() ) );
+    }
+
+    @Test
+    @Order(7)
+    void purgeRefusesACompactedTopic() throws Exception {
+        try( AdminClient admin = AdminClient.create( kafka.getClientProperties() ) ) {
+            admin.createTopics( Collections.singleton( new NewTopic( "compacted", 2, (short) 1 )
+                    .configs( Map.of( TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT ) ) ) ).all().get();
+        }
+        String printed = runExpectingFailure( "purge compacted" );
+        assertTrue( printed.contains( "cleanup.policy=compact" ), printed );
+    }
+
+    @Test
+    @Order(8)
+    void statsShowsWhatRan() throws InterruptedException {
+        String printed = run( "stats", 0, "stats" );
+        assertTrue( printed.contains( "consume poll" ), printed );
+        assertTrue( printed.contains( "describe" ), printed );
+        assertTrue( printed.contains( "Admin client it" ), printed );
+    }
+
+    @Test
+    @Order(9)
+    void describeFailsOnAMissingTopicOrGroup() throws InterruptedException {
+        String printed = runExpectingFailure( "describe topic missing" );
+        assertTrue( printed.contains( "Could not describe missing" ), printed );
+
+        printed = runExpectingFailure( "describe group missing" );
+        assertTrue( printed.contains( "Group missing does not exist" ), printed );
+    }
+
+    /**
+     * The terminal's output, remembering whether anything closed it.
+     */
+    static class TerminalOutput extends ByteArrayOutputStream {
+        volatile boolean closed = false;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.chubbard.kafka.shell;
+
+import kafka.server.KafkaServerStartable;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.zookeeper.server.ServerCnxnFactory;
+import org.apache.zookeeper.server.ZooKeeperServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * A single broker and ZooKeeper running inside the test JVM on free ports, with their data in a temp
+ * directory that's removed on close.  Everything is configured for one broker, so the internal topics
+ * use a replication factor of 1 and groups don't wait for more members before their first rebalance.
+ */
+public class EmbeddedKafka implements AutoCloseable {
+
+    private final Path dataDir;
+    private final ZooKeeperServer zookeeper;
+    private final ServerCnxnFactory zookeeperConnections;
+    private final KafkaServerStartable broker;
+    private final String bootstrapServers;
+
+    public EmbeddedKafka() throws IOException, InterruptedException {
+        dataDir = Files.createTempDirectory( "kafka-shell-it" );
+        File zookeeperDir = dataDir.resolve( "zookeeper" ).toFile();
+        zookeeper = new ZooKeeperServer( zookeeperDir, zookeeperDir, 500 );
+        zookeeperConnections = ServerCnxnFactory.createFactory( new InetSocketAddress( "127.0.0.1", 0 ), 60 );
+        zookeeperConnections.startup( zookeeper );
+
+        int port = freePort();
+        bootstrapServers = "127.0.0.1:" + port;
+        Properties props = new Properties();
+        props.setProperty( "broker.id", "0" );
+        props.setProperty( "zookeeper.connect", "127.0.0.1:" + zookeeperConnections.getLocalPort() );
+        props.setProperty( "listeners", "PLAINTEXT://" + bootstrapServers );
+        props.setProperty( "log.dirs", dataDir.resolve( "logs" ).toString() );
+        props.setProperty( "num.partitions", "1" );
+        props.setProperty( "auto.create.topics.enable", "false" );
+        props.setProperty( "offsets.topic.replication.factor", "1" );
+        props.setProperty( "offsets.topic.num.partitions", "1" );
+        props.setProperty( "transaction.state.log.replication.factor", "1" );
+        props.setProperty( "transaction.state.log.min.isr", "1" );
+        props.setProperty( "group.initial.rebalance.delay.ms", "0" );
+        broker = KafkaServerStartable.fromProps( props );
+        broker.startup();
+    }
+
+    public String getBootstrapServers() {
+        return bootstrapServers;
+    }
+
+    /**
+     * @return client properties for connecting to this broker, ready to hand to a {@link ClusterSession}.
+     */
+    public Properties getClientProperties() {
+        Properties props = new Properties();
+        props.setProperty( CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers );
+        return props;
+    }
+
+    private static int freePort() throws IOException {
+        try( ServerSocket socket = new ServerSocket( 0 ) ) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        broker.shutdown();
+        broker.awaitShutdown();
+        zookeeperConnections.shutdown();
+        zookeeper.shutdown();
+        try( Stream<Path> files = Files.walk( dataDir ) ) {
+            files.sorted( Comparator.reverseOrder() ).map( Path::toFile ).forEach( File::delete );
+        }
+    }
+}
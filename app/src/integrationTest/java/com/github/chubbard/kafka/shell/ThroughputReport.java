@@ -0,0 +1,111 @@
+package com.github.chubbard.kafka.shell;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects how long each command took and writes them to a CSV file, one row per command with its
+ * records per second and latency percentiles.  The file from the previous run is read first so each row
+ * can be compared with it; a command that got slower by more than the allowed slowdown is reported by
+ * {@link #getRegressions(double)}.
+ */
+public class ThroughputReport {
+
+    public static final String HEADER = "command,runs,records,total_ms,records_per_sec,p50_us,p99_us,max_us";
+
+    private final Path file;
+    private final Map<String,String[]> previous = new HashMap<>();
+    private final Map<String,Row> rows = new LinkedHashMap<>();
+
+    public ThroughputReport(Path file) throws IOException {
+        this.file = file;
+        if( Files.exists( file ) ) {
+            for( String line : Files.readAllLines( file, StandardCharsets.UTF_8 ) ) {
+                if( line.isEmpty() || line.equals( HEADER ) ) continue;
+                String[] columns = line.split( "," );
+                previous.put( columns[0], columns );
+            }
+        }
+    }
+
+    /**
+     * Records one run of a command that handled the given number of records.
+     */
+    public void record(String command, long records, long nanos) {
+        Row row = rows.computeIfAbsent( command, Row::new );
+        row.records += records;
+        row.nanos += nanos;
+        row.latency.record( TimeUnit.NANOSECONDS.toMicros( nanos ) );
+    }
+
+    /**
+     * @return a line for every command whose records per second dropped by more than maxSlowdown, e.g. 0.25
+     * for 25%, compared with the previous report.  Commands that handle no records are compared on their
+     * median latency instead.
+     */
+    public List<String> getRegressions(double maxSlowdown) {
+        List<String> regressions = new ArrayList<>();
+        for( Row row : rows.values() ) {
+            String[] before = previous.get( row.command );
+            if( before == null ) continue;
+            if( row.records > 0 ) {
+                double was = Double.parseDouble( before[4] );
+                if( was > 0 && row.getRate() < was * (1 - maxSlowdown) ) {
+                    regressions.add( String.format("%s: %,.0f records/s, was %,.0f", row.command, row.getRate(), was) );
+                }
+            } else {
+                long was = Long.parseLong( before[5] );
+                long now = row.latency.getPercentile( 50 );
+                if( was > 0 && now > was * (1 + maxSlowdown) ) {
+                    regressions.add( String.format("%s: p50 %,dus, was %,dus", row.command, now, was) );
+                }
+            }
+        }
+        return regressions;
+    }
+
+    public void write(PrintWriter out) throws IOException {
+        Files.createDirectories( file.toAbsolutePath().getParent() );
+        List<String> lines = new ArrayList<>();
+        lines.add( HEADER );
+        for( Row row : rows.values() ) {
+            lines.add( String.format(Locale.ROOT, "%s,%d,%d,%d,%.0f,%d,%d,%d", row.command, row.latency.getCount(),
+                    row.records, TimeUnit.NANOSECONDS.toMillis( row.nanos ), row.getRate(),
+                    row.latency.getPercentile( 50 ), row.latency.getPercentile( 99 ), row.latency.getMax()) );
+
+            String[] before = previous.get( row.command );
+            String change = "";
+            if( before != null ) {
+                change = row.records > 0
+                        ? String.format("  (was %,.0f records/s)", Double.parseDouble( before[4] ))
+                        : String.format("  (p50 was %,dus)", Long.parseLong( before[5] ));
+            }
+            out.printf("%-18s %,6d runs %,12d records %,14.0f records/s  p50 %,10dus  p99 %,10dus%s%n", row.command,
+                    row.latency.getCount(), row.records, row.getRate(), row.latency.getPercentile( 50 ),
+                    row.latency.getPercentile( 99 ), change);
+        }
+        Files.write( file, lines, StandardCharsets.UTF_8 );
+        out.println("Report written to " + file);
+        out.flush();
+    }
+
+    private static class Row {
+        final String command;
+        final LatencyHistogram latency = new LatencyHistogram();
+        long records;
+        long nanos;
+
+        Row(String command) {
+            this.command = command;
+        }
+
+        double getRate() {
+            return nanos == 0 ? 0 : records * 1e9 / nanos;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Tracks which source offsets have been acknowledged by the producer so a copy only commits offsets whose
+ * records are safely written.  Acks can arrive out of order when records from one source partition land in
+ * several destination partitions, so the committable offset for a partition is the lowest offset still
+ * waiting on an ack, or one past the last record sent when nothing is outstanding.
+ *
+ * {@link #sent(TopicPartition, long)} is called from the single thread doing the sends, {@link #acked(TopicPartition, long)}
+ * from the producer's callbacks, and {@link #committable()} from the consumer's thread.
+ */
+public class AckedOffsets {
+
+    private final Map<TopicPartition,PartitionOffsets> partitions = new ConcurrentHashMap<>();
+
+    public void sent(TopicPartition tp, long offset) {
+        PartitionOffsets p = partitions.computeIfAbsent( tp, k -> new PartitionOffsets() );
+        // pending must be updated before lastSent, see committable()
+        p.pending.add( offset );
+        p.lastSent = offset;
+    }
+
+    public void acked(TopicPartition tp, long offset) {
+        PartitionOffsets p = partitions.get( tp );
+        if( p != null ) p.pending.remove( offset );
+    }
+
+    /**
+     * @return the offset to commit for every partition that has had a record sent.
+     */
+    public Map<TopicPartition,OffsetAndMetadata> committable() {
+        Map<TopicPartition,OffsetAndMetadata> offsets = new HashMap<>();
+        partitions.forEach( (tp, p) -> {
+            // read lastSent first, anything sent at or before it is already in pending if it isn't acked
+            long next = p.lastSent + 1;
+            Long oldest = p.pending.ceiling( Long.MIN_VALUE );
+            offsets.put( tp, new OffsetAndMetadata( oldest != null ? Math.min( oldest, next ) : next ) );
+        });
+        return offsets;
+    }
+
+    public long getPending() {
+        return partitions.values().stream().mapToLong( p -> p.pending.size() ).sum();
+    }
+
+    private static class PartitionOffsets {
+        final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+        volatile long lastSent = -1;
+    }
+}
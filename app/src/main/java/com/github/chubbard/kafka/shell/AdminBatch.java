@@ -0,0 +1,141 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Collects topic creates, config changes and topic and group deletes from consecutive script lines so
+ * they go out as one createTopics, one incrementalAlterConfigs, one deleteTopics and one
+ * deleteConsumerGroups request, all in flight at the same time.  Each line still gets its own result
+ * since the admin client reports a future per topic, resource and group.
+ *
+ * A batch only holds one request per topic, group or broker.  Anything touching a name that is already
+ * in the batch is refused so the caller can send the batch first, which keeps a create followed by a
+ * config change on the same topic in order.
+ */
+public class AdminBatch {
+
+    private final Map<String,NewTopic> creates = new LinkedHashMap<>();
+    private final Map<ConfigResource,Collection<AlterConfigOp>> configs = new LinkedHashMap<>();
+    private final Set<String> topicDeletes = new LinkedHashSet<>();
+    private final Set<String> groupDeletes = new LinkedHashSet<>();
+    private final Set<String> names = new HashSet<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private String source;
+
+    /**
+     * Sets where the requests added next came from, e.g. the script line, for reporting errors.
+     */
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public boolean createTopic(NewTopic topic, String message) {
+        if( !claim( "topic:" + topic.name() ) ) return false;
+        creates.put( topic.name(), topic );
+        entries.add( new Entry( source, Kind.CREATE, topic.name(), message ) );
+        return true;
+    }
+
+    public boolean alterConfigs(ConfigResource resource, Collection<AlterConfigOp> ops, String message) {
+        String prefix = resource.type() == ConfigResource.Type.TOPIC ? "topic:" : "broker:";
+        if( !claim( prefix + resource.name() ) ) return false;
+        configs.put( resource, ops );
+        entries.add( new Entry( source, Kind.CONFIG, resource, message ) );
+        return true;
+    }
+
+    public boolean deleteTopic(String topic, String message) {
+        if( !claim( "topic:" + topic ) ) return false;
+        topicDeletes.add( topic );
+        entries.add( new Entry( source, Kind.DELETE_TOPIC, topic, message ) );
+        return true;
+    }
+
+    public boolean deleteGroup(String group, String message) {
+        if( !claim( "group:" + group ) ) return false;
+        groupDeletes.add( group );
+        entries.add( new Entry( source, Kind.DELETE_GROUP, group, message ) );
+        return true;
+    }
+
+    private boolean claim(String name) {
+        return names.add( name );
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public boolean hasTopicChanges() {
+        return !creates.isEmpty() || !topicDeletes.isEmpty();
+    }
+
+    public boolean hasGroupChanges() {
+        return !groupDeletes.isEmpty();
+    }
+
+    /**
+     * Sends every request in the batch at once, then prints each entry's outcome in the order the
+     * entries were added.
+     *
+     * @return the number of entries that failed.
+     */
+    public int execute(AdminClient admin, PrintWriter out) throws InterruptedException {
+        Map<String,KafkaFuture<Void>> created = creates.isEmpty() ? Collections.emptyMap() : admin.createTopics( creates.values() ).values();
+        Map<ConfigResource,KafkaFuture<Void>> altered = configs.isEmpty() ? Collections.emptyMap() : admin.incrementalAlterConfigs( configs ).values();
+        Map<String,KafkaFuture<Void>> deletedTopics = topicDeletes.isEmpty() ? Collections.emptyMap() : admin.deleteTopics( topicDeletes ).values();
+        Map<String,KafkaFuture<Void>> deletedGroups = groupDeletes.isEmpty() ? Collections.emptyMap() : admin.deleteConsumerGroups( groupDeletes ).deletedGroups();
+
+        int failures = 0;
+        for( Entry entry : entries ) {
+            KafkaFuture<Void> future;
+            switch( entry.kind ) {
+                case CREATE:
+                    future = created.get( entry.key );
+                    break;
+                case CONFIG:
+                    future = altered.get( entry.key );
+                    break;
+                case DELETE_TOPIC:
+                    future = deletedTopics.get( entry.key );
+                    break;
+                default:
+                    future = deletedGroups.get( entry.key );
+                    break;
+            }
+            try {
+                future.get();
+                out.println( entry.message );
+            } catch( ExecutionException ex ) {
+                failures++;
+                out.printf("%s: Error: %s%n", entry.source, ex.getCause().getMessage());
+            }
+        }
+        out.flush();
+        return failures;
+    }
+
+    private enum Kind { CREATE, CONFIG, DELETE_TOPIC, DELETE_GROUP }
+
+    private static class Entry {
+        final String source;
+        final Kind kind;
+        final Object key;
+        final String message;
+
+        Entry(String source, Kind kind, Object key, String message) {
+            this.source = source;
+            this.kind = kind;
+            this.key = key;
+            this.message = message;
+        }
+    }
+}
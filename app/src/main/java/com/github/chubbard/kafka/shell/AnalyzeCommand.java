@@ -0,0 +1,88 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class AnalyzeCommand extends ShellCommand implements ReadOnlyCommand {
+
+    public static final int DEFAULT_TOP = 5;
+
+    public AnalyzeCommand(App app) {
+        super(app);
+
+        help = String.format(String.join("%n%1$15s", Arrays.asList(
+                "topic <topic_name> [top <n>]",
+                "Shows how messages, bytes and leaders are spread over the topic's partitions",
+                "and brokers, and the n partitions holding the most messages (default 5).")
+        ), "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "analyze";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("analyze",
+                        node("topic", node( topicCompleter(), node("top") ) )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 3 || !words.get(1).equalsIgnoreCase("topic") ) {
+            println("Usage: analyze topic <topic_name> [top <n>]");
+            return;
+        }
+        int top = Integer.parseInt( getOption( words, "top" ).orElse( String.valueOf(DEFAULT_TOP) ) );
+        TopicAnalysis analysis = TopicAnalysis.fetch( getAdminClient(), words.get(2) ).get();
+        print( analysis, top );
+    }
+
+    private void print(TopicAnalysis analysis, int top) {
+        long totalMessages = analysis.getTotalMessages();
+        long totalBytes = analysis.getTotalBytes();
+        printf("%s: %,d partitions, %,d messages, %,d bytes%n", analysis.getTopic(),
+                analysis.getPartitions().size(), totalMessages, totalBytes);
+        printSpread( "Messages", analysis.getMessageSpread() );
+        printSpread( "Bytes", analysis.getByteSpread() );
+
+        printf("%nLeaders per broker (even spread is %.1f)%n", analysis.getIdealLeaders());
+        println("-----------------------------------");
+        for( Map.Entry<Integer,Integer> entry : analysis.getLeadersPerBroker().entrySet() ) {
+            String broker = entry.getKey() < 0 ? "none" : String.valueOf( entry.getKey() );
+            printf("%-8s %6d %+8.1f%n", broker, entry.getValue(), entry.getValue() - analysis.getIdealLeaders());
+        }
+
+        printf("%nHottest partitions%n");
+        println("------------------");
+        printf("%-10s %16s %7s %18s %7s %8s  %s%n", "partition", "messages", "share", "bytes", "share", "leader", "replicas");
+        for( TopicAnalysis.PartitionStats p : analysis.getHottest( top ) ) {
+            printf("%-10d %,16d %6.1f%% %,18d %6.1f%% %8s  %s%n", p.getPartition(),
+                    p.getMessages(), share( p.getMessages(), totalMessages ),
+                    p.getBytes(), share( p.getBytes(), totalBytes ),
+                    p.getLeader() < 0 ? "none" : String.valueOf( p.getLeader() ), p.getReplicas());
+        }
+    }
+
+    private void printSpread(String label, TopicAnalysis.Spread spread) {
+        printf("%-9s min %,d  max %,d  mean %,.0f  max/mean %.2fx  stddev/mean %.2f%n", label + ":",
+                spread.getMin(), spread.getMax(), spread.getMean(), spread.getSkew(), spread.getVariation());
+    }
+
+    private static double share(long value, long total) {
+        return total == 0 ? 0 : 100.0 * value / total;
+    }
+}
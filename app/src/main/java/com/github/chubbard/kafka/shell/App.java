@@ -4,7 +4,11 @@ import org.apache.kafka.clients.admin.*;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jline.reader.*;
@@ -12,112 +16,280 @@ import org.jline.reader.impl.DefaultParser;
 import org.jline.reader.impl.completer.AggregateCompleter;
 import org.jline.terminal.Terminal;
 import org.jline.terminal.TerminalBuilder;
+import org.jline.terminal.impl.DumbTerminal;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class App {
 
     private static final Logger logger = LogManager.getLogger( App.class );
 
-    AdminClient admin;
-    Properties properties;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    static final StartupTimings timings = new StartupTimings();
+
+    public static final String ALL_CLUSTERS = "--all-clusters";
+
+    Map<String,ClusterSession> sessions = new ConcurrentSkipListMap<>();
+    volatile ClusterSession current;
+    final ThreadLocal<ClusterSession> pinned = new ThreadLocal<>();
+    JobManager jobs = new JobManager();
+    ConsumerPool consumerPool = new ConsumerPool( ConsumerPool.DEFAULT_IDLE_MS );
+    final ShellStats stats = new ShellStats();
+    volatile StatusLine statusLine;
     Terminal terminal;
     boolean done = false;
 
-    List<ShellCommand> commands;
+    Map<String,Function<App,ShellCommand>> factories = new LinkedHashMap<>();
+    Map<String,ShellCommand> commands = new ConcurrentHashMap<>();
 
     public App() {
-        commands = Arrays.asList(
-                new HelpCommand( this ),
-                new ListCommand(this),
-                new DescribeCommand(this),
-                new CreateCommand( this ),
-                new ConfigureCommand( this ),
-                new ConsumeTopicCommand( this ),
-                new DeleteCommand( this ),
-                new PurgeTopicCommand( this ),
-                new ExitCommand( this )
-        );
+        // commands are only constructed when first used or completed, see findCommand
+        register( "help", HelpCommand::new );
+        register( "list", ListCommand::new );
+        register( "describe", DescribeCommand::new );
+        register( "analyze", AnalyzeCommand::new );
+        register( "create", CreateCommand::new );
+        register( "config", ConfigureCommand::new );
+        register( "consume", ConsumeTopicCommand::new );
+        register( "produce", ProduceCommand::new );
+        register( "delete", DeleteCommand::new );
+        register( "purge", PurgeTopicCommand::new );
+        register( "scan", ScanCommand::new );
+        register( "export", ExportCommand::new );
+        register( "import", ImportCommand::new );
+        register( "copy", CopyCommand::new );
+        register( "watch", WatchCommand::new );
+        register( "jobs", JobsCommand::new );
+        register( "fg", ForegroundCommand::new );
+        register( "kill", KillCommand::new );
+        register( "stats", StatsCommand::new );
+        register( "connect", ConnectCommand::new );
+        register( "use", UseCommand::new );
+        register( "exit", ExitCommand::new );
+        timings.mark("commands registered");
+    }
+
+    private void register(String verb, Function<App,ShellCommand> factory) {
+        factories.put( verb, factory );
+    }
+
+    /**
+     * @return the cluster commands on the calling thread talk to.  That's the session a background job or
+     * an --all-clusters run was started for, otherwise the one picked with use or connect.
+     */
+    public ClusterSession getSession() {
+        ClusterSession session = pinned.get();
+        return session != null ? session : current;
+    }
+
+    public Map<String,ClusterSession> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Adds a connected cluster and makes it the current one.
+     */
+    public void addSession(ClusterSession session) {
+        sessions.put( session.getProfile(), session );
+        current = session;
+    }
+
+    public void use(ClusterSession session) {
+        current = session;
     }
 
+    /**
+     * @return the admin client, waiting for it if the connection is still being set up in the background.
+     */
     public AdminClient getAdmin() {
-        return admin;
+        ClusterSession session = getSession();
+        return session != null ? session.getAdmin() : null;
     }
 
+    /**
+     * @return the terminal of the background job running on the calling thread, or the shell's terminal.
+     */
     public Terminal getTerminal() {
-        return terminal;
+        Job job = Job.current();
+        return job != null ? job.getTerminal() : terminal;
+    }
+
+    public ShellStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Shows or hides the status line on the shell's terminal.
+     *
+     * @return false if it was asked for and the terminal can't show one.
+     */
+    public synchronized boolean setStatusLine(boolean enabled) {
+        if( enabled && statusLine == null ) {
+            statusLine = StatusLine.start( terminal, stats );
+            return statusLine != null;
+        }
+        if( !enabled && statusLine != null ) {
+            statusLine.close();
+            statusLine = null;
+        }
+        return true;
+    }
+
+    public JobManager getJobs() {
+        return jobs;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return getSession().getMetadataCache();
     }
 
     public void connect() {
-        admin = AdminClient.create( properties );
+        connectAsync();
+        getAdmin();
         terminal.writer().println("Connected.");
     }
 
+    /**
+     * Connects the current session in the background, see {@link ClusterSession#connectAsync()}.
+     */
+    public CompletableFuture<Void> connectAsync() {
+        consumerPool.setIdleMs( Long.parseLong( current.getShellProperties().getProperty( "shell.consumer.idle.ms", String.valueOf(ConsumerPool.DEFAULT_IDLE_MS) ) ) );
+        return current.connectAsync();
+    }
+
     public void disconnect() {
-        admin.close();
+        setStatusLine( false );
+        jobs.shutdown();
+        consumerPool.close();
+        sessions.values().forEach( session -> session.close( CLOSE_TIMEOUT ) );
         logger.info("Disconnected");
     }
 
     public Consumer<byte[],byte[]> getConsumer() {
-        if( !properties.containsKey("key.deserializer") ) properties.put("key.deserializer", ByteArrayDeserializer.class.getName() );
-        if( !properties.containsKey("value.deserializer") ) properties.put("value.deserializer", ByteArrayDeserializer.class.getName() );
-        properties.setProperty(ConsumerConfig.GROUP_ID_CONFIG, UUID.randomUUID().toString());
-        return new KafkaConsumer<>( properties );
+        return getConsumer( Collections.emptyMap() );
+    }
+
+    /**
+     * Without a group.id in the overrides the consumer comes from the pool and has no group at all, so it
+     * can only be used with assign().  Closing it hands it back to the pool.  With a group.id a new
+     * consumer is created for that group.
+     */
+    public Consumer<byte[],byte[]> getConsumer(Map<String,Object> overrides) {
+        ClusterSession session = getSession();
+        Properties consumerProperties = new Properties();
+        consumerProperties.putAll( session.getProperties() );
+        if( !consumerProperties.containsKey("key.deserializer") ) consumerProperties.put("key.deserializer", ByteArrayDeserializer.class.getName() );
+        if( !consumerProperties.containsKey("value.deserializer") ) consumerProperties.put("value.deserializer", ByteArrayDeserializer.class.getName() );
+        consumerProperties.remove( ConsumerConfig.GROUP_ID_CONFIG );
+        if( overrides.containsKey( ConsumerConfig.GROUP_ID_CONFIG ) ) {
+            consumerProperties.putAll( overrides );
+            return new KafkaConsumer<>( consumerProperties );
+        }
+        consumerProperties.put( ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false" );
+        consumerProperties.putAll( overrides );
+        Map<String,String> key = new TreeMap<>();
+        overrides.forEach( (k, v) -> key.put( k, String.valueOf( v ) ) );
+        return consumerPool.borrow( Arrays.asList( session.getProfile(), key ), () -> new KafkaConsumer<>( consumerProperties ) );
+    }
+
+    public Producer<byte[],byte[]> getProducer(Map<String,Object> overrides) {
+        return getProducer( overrides, new ByteArraySerializer(), new ByteArraySerializer() );
     }
 
+    public <K,V> Producer<K,V> getProducer(Map<String,Object> overrides, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        Properties producerProperties = new Properties();
+        producerProperties.putAll( getSession().getProperties() );
+        producerProperties.remove("key.deserializer");
+        producerProperties.remove("value.deserializer");
+        producerProperties.putAll( overrides );
+        return new KafkaProducer<>( producerProperties, keySerializer, valueSerializer );
+    }
+
+    /**
+     * Loads ~/.kafka/&lt;profile&gt;.properties as the current session, falling back to a local broker
+     * when the file doesn't exist.
+     */
     public void loadProperties(String profile) {
-        this.properties = new Properties();
-        File kafkaClientDir = new File(System.getProperty("user.home"), ".kafka");
-        if( !kafkaClientDir.exists() ) kafkaClientDir.mkdir();
-        if( kafkaClientDir.exists() ) {
-            File clientConfig = new File(kafkaClientDir, profile + ".properties");
-            if( clientConfig.exists() ) {
-                logger.info("Loading profile " + clientConfig.getAbsolutePath() );
-                try (Reader reader = new FileReader( clientConfig ) ) {
-                    properties.load( reader );
-                } catch( IOException ioe ) {
-                    terminal.writer().println( ioe.getMessage() );
-                }
+        Properties properties = new Properties();
+        try {
+            Properties loaded = readProfile( profile );
+            if( loaded != null ) {
+                properties = loaded;
             } else {
                 logger.info("No configuration found using the default properties");
                 properties.put( AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
                 properties.put( AdminClientConfig.SECURITY_PROTOCOL_CONFIG, "PLAINTEXT" );
             }
+        } catch( IOException ioe ) {
+            terminal.writer().println( ioe.getMessage() );
+        }
+        addSession( new ClusterSession( profile, properties ) );
+    }
+
+    public static File getProfileDir() {
+        return new File(System.getProperty("user.home"), ".kafka");
+    }
+
+    /**
+     * @return the properties in ~/.kafka/&lt;profile&gt;.properties, or null when there's no such profile.
+     */
+    public static Properties readProfile(String profile) throws IOException {
+        File kafkaClientDir = getProfileDir();
+        if( !kafkaClientDir.exists() ) kafkaClientDir.mkdir();
+        File clientConfig = new File(kafkaClientDir, profile + ".properties");
+        if( !clientConfig.exists() ) return null;
+        logger.info("Loading profile " + clientConfig.getAbsolutePath() );
+        Properties properties = new Properties();
+        try (Reader reader = new FileReader( clientConfig ) ) {
+            properties.load( reader );
         }
+        return properties;
     }
 
     public void start() throws IOException {
         LineReader reader = buildTerminal();
+        timings.mark("terminal built");
         loadProperties("client");
-        if( !properties.isEmpty() ) connect();
+        timings.mark("properties loaded");
+        if( !current.getProperties().isEmpty() ) {
+            connectAsync().whenComplete( (v, error) -> {
+                reader.printAbove( error == null ? "Connected." : "Could not connect: " + rootMessage( error ) );
+                if( timings.isEnabled() ) reader.printAbove( timings.report() );
+            });
+        }
+        timings.mark("first prompt");
 
         try {
             while (!done) {
-                String line = reader.readLine("> ");
+                jobs.reportFinished( terminal.writer() );
+                String line = reader.readLine( prompt() );
                 line = line.trim();
+                boolean background = line.endsWith("&");
+                if( background ) line = line.substring( 0, line.length() - 1 ).trim();
 
                 ParsedLine pl = reader.getParser().parse(line, 0);
                 if (pl.word().isEmpty()) continue;
 
-                String verb = pl.word();
-                for (ShellCommand cmd : commands) {
+                ShellCommand cmd = findCommand( pl.word() );
+                if( cmd == null ) continue;
+                if( background ) {
+                    submit( line, cmd, pl );
+                } else {
                     try {
-                        if (cmd.getCommand().equalsIgnoreCase(verb)) {
-                            cmd.invoke(pl);
-                            break;
-                        }
-                    } catch (ExecutionException e) {
-                        logger.error("Error received", e);
-                        terminal.writer().println("Error: " + e.getMessage());
+                        execute( cmd, pl );
                     } catch (InterruptedException e) {
                         logger.warn("Shell interrupted. Exiting.");
                         exit();
-                    } catch( Throwable t ) {
-                        logger.error("Unexpected error", t);
-                        terminal.writer().println("Unexpected error: " + t.getMessage() );
                     }
                 }
             }
@@ -128,9 +300,149 @@ public class App {
         }
     }
 
+    /**
+     * Runs a command reporting any error it throws.
+     *
+     * @return false if the command failed.
+     */
+    boolean execute(ShellCommand cmd, ParsedLine pl) throws InterruptedException {
+        if( pl.words().contains( ALL_CLUSTERS ) ) return executeOnAllClusters( cmd, pl );
+        long start = System.nanoTime();
+        try {
+            cmd.invoke(pl);
+            return true;
+        } catch (ExecutionException e) {
+            logger.error("Error received", e);
+            getTerminal().writer().println("Error: " + e.getMessage());
+        } catch (InterruptedException e) {
+            throw e;
+        } catch( Throwable t ) {
+            logger.error("Unexpected error", t);
+            getTerminal().writer().println("Unexpected error: " + t.getMessage() );
+        } finally {
+            stats.recordCommand( cmd.getCommand(), System.nanoTime() - start );
+        }
+        return false;
+    }
+
+    /**
+     * @return the command for the verb, constructing it the first time it's asked for, or null for an
+     * unknown verb.
+     */
+    ShellCommand findCommand(String verb) {
+        String key = verb.toLowerCase();
+        Function<App,ShellCommand> factory = factories.get( key );
+        if( factory == null ) return null;
+        return commands.computeIfAbsent( key, k -> factory.apply( this ) );
+    }
+
+    /**
+     * Runs a read-only command against every connected cluster at once.  Each run gets its own job
+     * terminal so output doesn't interleave, and once they've all finished their output is printed in
+     * profile order with every line prefixed by the profile it came from.
+     *
+     * @return false if the command failed on any cluster.
+     */
+    private boolean executeOnAllClusters(ShellCommand cmd, ParsedLine pl) throws InterruptedException {
+        PrintWriter out = getTerminal().writer();
+        if( !(cmd instanceof ReadOnlyCommand) ) {
+            out.printf("%s can't be used with %s.%n", cmd.getCommand(), ALL_CLUSTERS);
+            return false;
+        }
+        ParsedLine line = new DefaultParser().parse( pl.line().replace( ALL_CLUSTERS, "" ), 0 );
+        List<ClusterSession> targets = new ArrayList<>( sessions.values() );
+        List<Job> runs = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        boolean[] succeeded = new boolean[ targets.size() ];
+        try {
+            for( int i = 0; i < targets.size(); i++ ) {
+                ClusterSession session = targets.get(i);
+                int index = i;
+                Job run = new Job( 0, line.line() );
+                runs.add( run );
+                futures.add( jobs.runUnlisted( run, () -> runPinned( session, () -> {
+                    try {
+                        succeeded[index] = execute( cmd, line );
+                    } catch( InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return succeeded[index];
+                })));
+            }
+            for( Future<?> future : futures ) {
+                try {
+                    future.get();
+                } catch( ExecutionException | CancellationException e ) {
+                    // reported on the run's own terminal
+                }
+            }
+        } catch( InterruptedException e ) {
+            runs.forEach( Job::kill );
+            throw e;
+        } catch( IOException ioe ) {
+            out.println("Could not start the command: " + ioe.getMessage());
+            return false;
+        }
+
+        int width = targets.stream().mapToInt( s -> s.getProfile().length() ).max().orElse(0);
+        boolean ok = true;
+        for( int i = 0; i < targets.size(); i++ ) {
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            try {
+                runs.get(i).attach( captured );
+            } catch( IOException e ) {
+                // can't happen writing to memory
+            }
+            String prefix = String.format("%-" + width + "s  ", targets.get(i).getProfile());
+            for( String text : captured.toString( StandardCharsets.UTF_8 ).split("\\R") ) {
+                if( !text.isEmpty() ) out.println( prefix + text );
+            }
+            ok &= succeeded[i];
+        }
+        out.flush();
+        return ok;
+    }
+
+    private boolean runPinned(ClusterSession session, BooleanSupplier command) {
+        pinned.set( session );
+        try {
+            return command.getAsBoolean();
+        } finally {
+            pinned.remove();
+        }
+    }
+
+    private String prompt() {
+        return sessions.size() > 1 ? current.getProfile() + "> " : "> ";
+    }
+
+    private static String rootMessage(Throwable error) {
+        while( error.getCause() != null ) error = error.getCause();
+        return error.getMessage();
+    }
+
+    private void submit(String line, ShellCommand cmd, ParsedLine pl) {
+        // the job keeps talking to this cluster even if another one is picked with use meanwhile
+        ClusterSession session = getSession();
+        try {
+            Job job = jobs.submit( line, () -> runPinned( session, () -> {
+                try {
+                    return execute( cmd, pl );
+                } catch( InterruptedException e ) {
+                    // killed while waiting on the cluster
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+            terminal.writer().printf("[%d] %s%n", job.getId(), line);
+        } catch( IOException ioe ) {
+            terminal.writer().println("Could not start the job: " + ioe.getMessage());
+        }
+    }
+
     private LineReader buildTerminal() throws IOException {
         TerminalBuilder builder = TerminalBuilder.builder();
-        Completer completer = new AggregateCompleter(commands.stream().map(ShellCommand::getCompleter).collect(Collectors.toList()));
+        Completer completer = buildCompleter();
         Parser parser = new DefaultParser();
 
         terminal = builder.build();
@@ -142,8 +454,62 @@ public class App {
                 .build();
     }
 
+    private Completer buildCompleter() {
+        return new AggregateCompleter( factories.keySet().stream()
+                .map( verb -> new LazyCommandCompleter( verb, () -> findCommand( verb ) ) )
+                .collect(Collectors.toList()) );
+    }
+
     public List<ShellCommand> getCommands() {
-        return commands;
+        return factories.keySet().stream().map( this::findCommand ).collect(Collectors.toList());
+    }
+
+    /**
+     * Runs a script of commands instead of reading them from the terminal, - reads the script from stdin.
+     *
+     * @return the exit code, 0 when every command succeeded.
+     */
+    public int runScript(String file) throws IOException {
+        terminal = new DumbTerminal( new ByteArrayInputStream( new byte[0] ), System.out );
+        loadProperties("client");
+        connect();
+        boolean stdin = "-".equals( file );
+        try( BufferedReader script = stdin
+                ? new BufferedReader( new InputStreamReader( System.in, StandardCharsets.UTF_8 ) )
+                : Files.newBufferedReader( Paths.get( file ), StandardCharsets.UTF_8 ) ) {
+            int failures = new ScriptRunner( this ).run( stdin ? "stdin" : file, script );
+            if( failures > 0 ) terminal.writer().printf("%d command(s) failed.%n", failures);
+            return failures > 0 ? 1 : 0;
+        } catch( InterruptedException e ) {
+            logger.warn("Script interrupted.");
+            return 1;
+        } finally {
+            terminal.writer().flush();
+            disconnect();
+        }
+    }
+
+    /**
+     * Goes through the interactive startup without connecting, for the cdsArchive build task to record the
+     * classes it loads: builds the terminal and line reader, every command and its completer, completes a
+     * verb and reads a line.  Under the build stdin is empty so the read ends straight away.
+     */
+    public void train() throws IOException {
+        LineReader reader = buildTerminal();
+        loadProperties("client");
+        getCommands().forEach( ShellCommand::getCompleter );
+        buildCompleter().complete( reader, reader.getParser().parse( "co", 2 ), new ArrayList<>() );
+        try {
+            if( System.console() == null ) reader.readLine( prompt() );
+        } catch( EndOfFileException | UserInterruptException ex ) {
+            // nothing to read, which is all the training needs
+        } finally {
+            terminal.close();
+        }
+    }
+
+    public boolean isDone() {
+        return done;
     }
 
     public void exit() {
@@ -151,6 +517,18 @@ public class App {
     }
 
     public static void main(String[] args) throws IOException {
+        timings.mark("main");
+        List<String> arguments = Arrays.asList( args );
+        timings.setEnabled( arguments.contains("--timings") );
+        if( arguments.contains("--cds-training") ) {
+            new App().train();
+            return;
+        }
+        int script = arguments.indexOf("-f");
+        if( script >= 0 ) {
+            String file = script + 1 < args.length ? args[script + 1] : "-";
+            System.exit( new App().runScript( file ) );
+        }
         new App().start();
     }
 
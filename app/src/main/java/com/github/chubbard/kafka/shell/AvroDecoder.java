@@ -0,0 +1,85 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decodes Confluent framed Avro, a zero magic byte and a 4 byte schema id followed by the binary
+ * datum, into the datum's JSON text.  One decoder belongs to one format worker and isn't thread safe:
+ * it keeps the datum readers it has built in a small LRU by schema id, and reuses its binary decoder,
+ * the last datum read for each schema and its text buffer from record to record.
+ */
+public class AvroDecoder {
+
+    public static final byte MAGIC_BYTE = 0;
+    public static final int HEADER_SIZE = 5;
+    public static final int MAX_READERS = 128;
+
+    private final SchemaCache schemas;
+    private final Map<Integer,Reader> readers = new LinkedHashMap<>( 16, 0.75f, true ) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer,Reader> eldest) {
+            return size() > MAX_READERS;
+        }
+    };
+    private final JsonText json = new JsonText();
+    private final StringBuilder text = new StringBuilder( 1024 );
+    private BinaryDecoder decoder;
+
+    public AvroDecoder(SchemaCache schemas) {
+        this.schemas = schemas;
+    }
+
+    public static boolean isFramed(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC_BYTE;
+    }
+
+    /**
+     * @param data framed Avro, see {@link #isFramed(byte[])}.
+     * @return the datum as JSON, valid until the next call.
+     */
+    public CharSequence decode(byte[] data) {
+        int id = ((data[1] & 0xff) << 24) | ((data[2] & 0xff) << 16) | ((data[3] & 0xff) << 8) | (data[4] & 0xff);
+        Reader reader = readers.get( id );
+        if( reader == null ) {
+            reader = new Reader( schemas.get( id ) );
+            readers.put( id, reader );
+        }
+        decoder = DecoderFactory.get().binaryDecoder( data, HEADER_SIZE, data.length - HEADER_SIZE, decoder );
+        try {
+            reader.datum = reader.reader.read( reader.datum, decoder );
+        } catch( IOException | RuntimeException ex ) {
+            throw new SerializationException( "Could not decode Avro with schema " + id + ": " + ex.getMessage(), ex );
+        }
+        text.setLength( 0 );
+        json.append( reader.datum, text );
+        return text;
+    }
+
+    private static class Reader {
+        final GenericDatumReader<Object> reader;
+        Object datum;
+
+        Reader(Schema schema) {
+            reader = new GenericDatumReader<>( schema );
+        }
+    }
+
+    /**
+     * GenericData's JSON rendering, but into a caller's StringBuilder instead of a new String.
+     */
+    private static class JsonText extends GenericData {
+        void append(Object datum, StringBuilder out) {
+            toString( datum, out, new IdentityHashMap<>() );
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.chubbard.kafka.shell;
+
+import java.util.List;
+
+/**
+ * A command whose admin request can be merged with the requests of neighbouring lines when a script is
+ * run with -f.
+ */
+public interface BatchableCommand {
+
+    /**
+     * @return true when this particular form of the command can go in an {@link AdminBatch}.
+     */
+    boolean isBatchable(List<String> words);
+
+    /**
+     * Adds the command's request to the batch.
+     *
+     * @return false without adding anything when the request touches a name already in the batch.
+     */
+    boolean addTo(AdminBatch batch, List<String> words);
+}
@@ -0,0 +1,82 @@
+package com.github.chubbard.kafka.shell;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Collects formatted records into a single reusable direct buffer and writes it to the channel in one
+ * go.  The buffer is drained when it fills up, or at the end of a batch once either the flush interval
+ * has elapsed or at least flushBytes are pending.  With flushMs of 0 every batch is written as soon as
+ * it is complete.
+ */
+public class BufferedOutputSink implements OutputSink {
+
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+    public static final long DEFAULT_FLUSH_MS = 100;
+
+    private final WritableByteChannel channel;
+    private final Flushable flushable;
+    private final ByteBuffer buffer;
+    private final long flushMs;
+    private final int flushBytes;
+    private long lastFlush;
+    private long bytesWritten;
+
+    public BufferedOutputSink(WritableByteChannel channel, Flushable flushable, int capacity, long flushMs, int flushBytes) {
+        this.channel = channel;
+        this.flushable = flushable;
+        this.buffer = ByteBuffer.allocateDirect( capacity );
+        this.flushMs = flushMs;
+        this.flushBytes = Math.min( flushBytes, capacity );
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if( length > buffer.remaining() ) drain();
+        if( length > buffer.capacity() ) {
+            writeFully( ByteBuffer.wrap( data, offset, length ) );
+        } else {
+            buffer.put( data, offset, length );
+        }
+        bytesWritten += length;
+    }
+
+    @Override
+    public void endBatch() throws IOException {
+        if( buffer.position() >= flushBytes || System.currentTimeMillis() - lastFlush >= flushMs ) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if( flushable != null ) flushable.flush();
+        lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        writeFully( buffer );
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while( source.hasRemaining() ) {
+            channel.write( source );
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
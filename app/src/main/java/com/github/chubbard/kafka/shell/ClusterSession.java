@@ -0,0 +1,102 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AdminClient;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A cluster the shell is connected to: the profile it came from, the client properties, its admin client
+ * and the metadata cache used for completing names on that cluster.  Several sessions can be open at
+ * once, see {@link App#getSession()} for which one a command uses.
+ */
+public class ClusterSession {
+
+    private final String profile;
+    private final Properties properties = new Properties();
+    private final Properties shellProperties = new Properties();
+    private final MetadataCache metadataCache;
+    private volatile CompletableFuture<AdminClient> connecting;
+    private SchemaCache schemaCache;
+
+    /**
+     * Keys starting with shell. configure the shell itself, e.g. shell.metadata.ttl.ms, and are kept out
+     * of the properties handed to the kafka clients.
+     */
+    public ClusterSession(String profile, Properties profileProperties) {
+        this.profile = profile;
+        for( String key : profileProperties.stringPropertyNames() ) {
+            if( key.startsWith("shell.") ) {
+                shellProperties.setProperty( key, profileProperties.getProperty( key ) );
+            } else {
+                properties.put( key, profileProperties.get( key ) );
+            }
+        }
+        metadataCache = new MetadataCache( this::getAdmin, Long.parseLong( shellProperties.getProperty( "shell.metadata.ttl.ms", String.valueOf(MetadataCache.DEFAULT_TTL_MS) ) ) );
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public Properties getShellProperties() {
+        return shellProperties;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    /**
+     * @return the schemas for decoding Avro from this cluster, read from shell.schema.dir or
+     * ~/.kafka/schemas and kept between commands.  shell.schema.cache.size bounds how many are kept.
+     */
+    public synchronized SchemaCache getSchemaCache() {
+        if( schemaCache == null ) {
+            File dir = new File( shellProperties.getProperty( "shell.schema.dir", new File( App.getProfileDir(), "schemas" ).getPath() ) );
+            schemaCache = new SchemaCache( dir, Integer.parseInt( shellProperties.getProperty( "shell.schema.cache.size", String.valueOf(SchemaCache.DEFAULT_SIZE) ) ) );
+        }
+        return schemaCache;
+    }
+
+    /**
+     * Creates the admin client on a background thread and loads the metadata for completion once it's
+     * ready.  Anything needing the admin client before then waits for it in {@link #getAdmin()}.
+     */
+    public CompletableFuture<Void> connectAsync() {
+        metadataCache.clear();
+        connecting = CompletableFuture.supplyAsync( () -> {
+            AdminClient client = AdminClient.create( properties );
+            App.timings.mark("admin client created");
+            return client;
+        });
+        return connecting.thenCompose( client -> metadataCache.refreshAll() )
+                .whenComplete( (v, error) -> App.timings.mark("metadata loaded") );
+    }
+
+    /**
+     * @return the admin client, waiting for it if the connection is still being set up in the background.
+     */
+    public AdminClient getAdmin() {
+        return connecting != null ? connecting.join() : null;
+    }
+
+    /**
+     * @return not connected, connecting, connected or failed.
+     */
+    public String getState() {
+        if( connecting == null ) return "not connected";
+        if( !connecting.isDone() ) return "connecting";
+        return connecting.isCompletedExceptionally() ? "failed" : "connected";
+    }
+
+    public void close(Duration timeout) {
+        if( connecting != null && !connecting.isCompletedExceptionally() ) getAdmin().close( timeout );
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.chubbard.kafka.shell;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Thrown by a command that has already explained what went wrong, or can say it in one line, so
+ * {@link App#execute} reports it as an error and a script counts the command as failed.
+ */
+public class CommandFailedException extends ExecutionException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CommandFailedException(String message) {
+        super( message );
+    }
+}
@@ -22,7 +22,7 @@ import static org.apache.kafka.common.config.ConfigResource.*;
 import static org.apache.kafka.common.config.ConfigResource.Type.*;
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
-public class ConfigureCommand extends ShellCommand {
+public class ConfigureCommand extends ShellCommand implements BatchableCommand {
     public ConfigureCommand(App app) {
         super( app );
 
@@ -48,14 +48,14 @@ public class ConfigureCommand extends ShellCommand {
         return new Completers.TreeCompleter(
                 node("config",
                     node("topic",
-                            node(new StringsCompleter( this::getTopics ),
+                            node(topicCompleter(),
                                     node(new EnumCompleter(AlterConfigOp.OpType.class),
                                             node(new StringsCompleter( getTopicConfigs() ))
                                     )
                             )
                     ),
                     node("broker",
-                            node(new StringsCompleter(this::getBrokers),
+                            node(brokerCompleter(),
                                     node(new EnumCompleter(AlterConfigOp.OpType.class))
                             )
                     )
@@ -101,14 +101,31 @@ public class ConfigureCommand extends ShellCommand {
         applyConfigToResource(resource, operation, configs);
     }
 
+    @Override
+    public boolean isBatchable(List<String> words) {
+        if( words.size() < 5 ) return false;
+        String type = words.get(1).toUpperCase();
+        return type.equals( TOPIC.name() ) || type.equals( BROKER.name() );
+    }
+
+    @Override
+    public boolean addTo(AdminBatch batch, List<String> words) {
+        ConfigResource resource = new ConfigResource( valueOf(words.get(1).toUpperCase()), words.get(2) );
+        List<String> properties = words.subList( 4, words.size() );
+        return batch.alterConfigs( resource, toOps( words.get(3), properties ),
+                String.format("Configuration change applied to %s %s.", words.get(1), words.get(2)) );
+    }
+
+    private Collection<AlterConfigOp> toOps(String operation, List<String> configs) {
+        return configs.stream().map((config) -> {
+            String[] split = config.split("=");
+            ConfigEntry entry = new ConfigEntry(split[0], split.length > 1 ? split[1] : null);
+            return new AlterConfigOp(entry, AlterConfigOp.OpType.valueOf(operation.toUpperCase()) );
+        }).collect(Collectors.toList());
+    }
+
     private void applyConfigToResource(ConfigResource resource, String operation, List<String> configs) throws InterruptedException, ExecutionException {
-        Map<ConfigResource, Collection<AlterConfigOp>> configChanges = Map.of(resource,
-                configs.stream().map((config) -> {
-                    String[] split = config.split("=");
-                    ConfigEntry entry = new ConfigEntry(split[0], split[1]);
-                    return new AlterConfigOp(entry, AlterConfigOp.OpType.valueOf(operation) );
-                }).collect(Collectors.toList())
-        );
+        Map<ConfigResource, Collection<AlterConfigOp>> configChanges = Map.of(resource, toOps( operation, configs ) );
         AlterConfigsResult res = getAdminClient().incrementalAlterConfigs( configChanges );
         res.all().get();
         println("Configuration change applied.");
@@ -0,0 +1,89 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+import org.jline.reader.impl.completer.StringsCompleter;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class ConnectCommand extends ShellCommand {
+
+    public ConnectCommand(App app) {
+        super(app);
+
+        help = String.format(String.join("%n%1$15s", Arrays.asList(
+                "<profile>",
+                "Connects to the cluster in ~/.kafka/<profile>.properties and switches to it.",
+                "Clusters already connected stay connected, see use.")
+        ), "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "connect";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("connect", node( new StringsCompleter( ConnectCommand::getProfiles ) ) )
+        );
+    }
+
+    /**
+     * @return the names of the profiles in ~/.kafka.
+     */
+    static List<String> getProfiles() {
+        File[] files = App.getProfileDir().listFiles( (dir, name) -> name.endsWith(".properties") );
+        if( files == null ) return Collections.emptyList();
+        List<String> profiles = new ArrayList<>();
+        for( File file : files ) profiles.add( file.getName().substring( 0, file.getName().length() - ".properties".length() ) );
+        Collections.sort( profiles );
+        return profiles;
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 2 ) {
+            println("Missing profile.");
+            return;
+        }
+        String profile = words.get(1);
+        ClusterSession existing = app.getSessions().get( profile );
+        if( existing != null ) {
+            app.use( existing );
+            printf("Already connected to %s, switched to it.%n", profile);
+            return;
+        }
+
+        Properties properties;
+        try {
+            properties = App.readProfile( profile );
+        } catch( IOException ioe ) {
+            println( ioe.getMessage() );
+            return;
+        }
+        if( properties == null ) {
+            printf("No profile %s, expected %s.%n", profile, new File( App.getProfileDir(), profile + ".properties" ));
+            return;
+        }
+
+        ClusterSession session = new ClusterSession( profile, properties );
+        try {
+            session.connectAsync().get();
+        } catch( ExecutionException | InterruptedException e ) {
+            session.close( Duration.ZERO );
+            throw e;
+        }
+        app.addSession( session );
+        printf("Connected to %s.%n", profile);
+    }
+}
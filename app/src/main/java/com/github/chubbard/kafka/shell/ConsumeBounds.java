@@ -0,0 +1,115 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.*;
+
+/**
+ * Tracks where a bounded consume should stop.  Each partition has an exclusive end offset resolved up
+ * front from to-offset, to-time and the partition's current end, and there can be an overall cap on the
+ * number of messages.  Records past the bounds are trimmed from each poll before they're formatted and
+ * partitions that reach their end are paused so the consumer stops fetching them.
+ */
+public class ConsumeBounds {
+
+    private final Map<TopicPartition,Long> endOffsets;
+    private long remaining;
+
+    public ConsumeBounds(Map<TopicPartition,Long> endOffsets, long maxMessages) {
+        this.endOffsets = endOffsets != null ? new HashMap<>( endOffsets ) : null;
+        this.remaining = maxMessages;
+    }
+
+    /**
+     * Resolves the exclusive end offset for each partition.  to-time is inclusive so it is resolved to the
+     * first offset with a timestamp after it, and to-offset is inclusive as well.  Both are capped at the
+     * partition's current end offset so a bounded read never waits for new data.
+     */
+    public static ConsumeBounds resolve(Consumer<byte[],byte[]> consumer, Collection<TopicPartition> partitions, Long toTime, Long toOffset, long maxMessages) {
+        Map<TopicPartition,Long> ends = new HashMap<>( consumer.endOffsets( partitions ) );
+        if( toTime != null ) {
+            Map<TopicPartition,Long> query = new HashMap<>();
+            partitions.forEach( tp -> query.put( tp, toTime + 1 ) );
+            for( Map.Entry<TopicPartition,OffsetAndTimestamp> e : consumer.offsetsForTimes( query ).entrySet() ) {
+                if( e.getValue() != null ) ends.merge( e.getKey(), e.getValue().offset(), Math::min );
+            }
+        }
+        if( toOffset != null ) {
+            // saturate so a to-offset of Long.MAX_VALUE means read to the end rather than overflowing
+            long end = toOffset == Long.MAX_VALUE ? toOffset : toOffset + 1;
+            partitions.forEach( tp -> ends.merge( tp, end, Math::min ) );
+        }
+        return new ConsumeBounds( ends, maxMessages );
+    }
+
+    /**
+     * Seeks every partition to the first offset at or after the given timestamp, or to the end if there
+     * isn't one.
+     */
+    public static void seekToTime(Consumer<byte[],byte[]> consumer, Collection<TopicPartition> partitions, long timestamp) {
+        Map<TopicPartition,Long> query = new HashMap<>();
+        partitions.forEach( tp -> query.put( tp, timestamp ) );
+        List<TopicPartition> pastEnd = new ArrayList<>();
+        for( Map.Entry<TopicPartition,OffsetAndTimestamp> e : consumer.offsetsForTimes( query ).entrySet() ) {
+            if( e.getValue() != null ) {
+                consumer.seek( e.getKey(), e.getValue().offset() );
+            } else {
+                pastEnd.add( e.getKey() );
+            }
+        }
+        if( !pastEnd.isEmpty() ) consumer.seekToEnd( pastEnd );
+    }
+
+    /**
+     * Returns the records from the poll that fall inside the bounds.  When nothing needs trimming the
+     * original records are returned as is.
+     */
+    public ConsumerRecords<byte[],byte[]> apply(ConsumerRecords<byte[],byte[]> records) {
+        if( records.isEmpty() || (endOffsets == null && remaining >= records.count()) ) {
+            remaining -= records.count();
+            return records;
+        }
+
+        Map<TopicPartition,List<ConsumerRecord<byte[],byte[]>>> kept = new HashMap<>();
+        for( TopicPartition tp : records.partitions() ) {
+            if( remaining <= 0 ) break;
+            List<ConsumerRecord<byte[],byte[]>> partitionRecords = records.records( tp );
+            int cut = partitionRecords.size();
+            Long end = endOffsets != null ? endOffsets.get( tp ) : null;
+            if( endOffsets != null && end == null ) continue;
+            if( end != null ) {
+                while( cut > 0 && partitionRecords.get( cut - 1 ).offset() >= end ) cut--;
+            }
+            cut = (int) Math.min( cut, remaining );
+            if( cut > 0 ) {
+                kept.put( tp, partitionRecords.subList( 0, cut ) );
+                remaining -= cut;
+            }
+        }
+        return new ConsumerRecords<>( kept );
+    }
+
+    /**
+     * Checks the consumer's position on every partition still being read and pauses the ones that have
+     * reached their end offset.
+     */
+    public void update(Consumer<byte[],byte[]> consumer) {
+        if( endOffsets == null ) return;
+        List<TopicPartition> finished = new ArrayList<>();
+        for( Map.Entry<TopicPartition,Long> e : endOffsets.entrySet() ) {
+            if( consumer.position( e.getKey() ) >= e.getValue() ) finished.add( e.getKey() );
+        }
+        if( !finished.isEmpty() ) {
+            consumer.pause( finished );
+            finished.forEach( endOffsets::remove );
+        }
+    }
+
+    public boolean isDone() {
+        return remaining <= 0 || (endOffsets != null && endOffsets.isEmpty());
+    }
+}
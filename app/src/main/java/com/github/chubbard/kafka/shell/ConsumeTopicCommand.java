@@ -1,11 +1,9 @@
 package com.github.chubbard.kafka.shell;
 
-import kafka.tools.DefaultMessageFormatter;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.common.MessageFormatter;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 import org.jline.builtins.Completers;
@@ -14,17 +12,25 @@ import org.jline.reader.ParsedLine;
 import org.jline.reader.impl.completer.StringsCompleter;
 import org.jline.utils.NonBlockingReader;
 
+import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
 public class ConsumeTopicCommand extends ShellCommand {
 
-    int timeoutMs = 500;
+    public static final int DEFAULT_TIMEOUT_MS = 500;
 
     public ConsumeTopicCommand(App app) {
         super(app);
@@ -33,9 +39,24 @@ public class ConsumeTopicCommand extends ShellCommand {
                 String.join( "%n%1$20s",
                     "<topic>",
                     "[offset <beginning|latest|numeric>]",
+                    "[from-time <epoch_ms|iso_time>]",
+                    "[to-time <epoch_ms|iso_time>]",
+                    "[to-offset <numeric>]",
+                    "[max-messages <numeric>]",
                     "[partition <numeric>]",
+                    "[partitions <all|numeric,...>]",
+                    "[workers <numeric>]",
+                    "[interleaved]",
+                    "[output <file>]",
+                    "[flush.ms <numeric>]",
+                    "[flush.bytes <numeric>]",
+                    "[timeout <ms>]",
+                    "[max.poll.records <numeric>]",
                     "[group <group_name>]",
                     "[skipErrors]",
+                    "[format <raw|hex|json-lines|csv|kafka>]",
+                    "[decode avro [key|value|both]]",
+                    "[schemas <dir>]",
                     "[print.key]",
                     "[print.value]",
                     "[print.headers]",
@@ -47,7 +68,8 @@ public class ConsumeTopicCommand extends ShellCommand {
                     "[headers.deserializer <classname>]",
                     "[key.separator <separator>]",
                     "[headers.separator <separator>]",
-                    "[null.literal <literal>]"
+                    "[null.literal <literal>]",
+                    "[where <field> <op> <value> [and|or ...]]"
                 ), ""
         );
     }
@@ -83,14 +105,25 @@ public class ConsumeTopicCommand extends ShellCommand {
 //        );
         return new Completers.TreeCompleter(
                 node("consume",
-                        node(new StringsCompleter( this::getTopics ),
+                        node(topicCompleter(),
                                 node("offset", node("beginning", "latest")),
+                                node("from-time", "to-time", "to-offset", "max-messages"),
                                 node("partition"),
+                                node("partitions", node("all")),
+                                node("workers"),
+                                node("interleaved"),
+                                node("output"),
+                                node("flush.ms", "flush.bytes"),
+                                node("timeout", "max.poll.records"),
                                 node("group"),
                                 node("skipErrors"),
+                                node("format", node( new StringsCompleter( RecordFormatters::getNames ) ) ),
+                                node("decode", node("avro", node("key", "value", "both"))),
+                                node("schemas"),
                                 node("print.key", "print.value", "print.headers", "print.timestamp", "print.offset", "partition" ),
                                 node("key.deserializer", "value.deserializer", "header.deserializer"),
-                                node("key.separator", "headers.separator", "null.literal" )
+                                node("key.separator", "headers.separator", "null.literal" ),
+                                node("where", node("key", "value", "timestamp", "header.", "$."))
                         )
                 )
         );
@@ -104,13 +137,35 @@ public class ConsumeTopicCommand extends ShellCommand {
             println("Missing topic to consume.");
             return;
         }
-        PrintStream output = new PrintStream( getTerminal().output(), true, getTerminal().encoding() );
-
+        RecordFilter filter = null;
+        int where = words.indexOf("where");
+        if( where > 1 ) {
+            // everything after where belongs to the filter so it can't be mistaken for an option
+            filter = RecordFilter.compile( words.subList( where + 1, words.size() ) );
+            words = words.subList( 0, where );
+        }
         String topic = words.get( 1 );
         boolean skipErrors = hasOption( words, "skipErrors");
+        boolean ordered = !hasOption( words, "interleaved" );
         String offset = getOption( words, "offset" ).orElse(null);
-        Integer partitionNumber = getOption( words, "partition" ).map(Integer::parseInt).orElse(1);
-        TopicPartition partition = new TopicPartition(topic, partitionNumber);
+        Long fromTime = getOption( words, "from-time" ).map(ShellCommand::parseTimestamp).orElse(null);
+        Long toTime = getOption( words, "to-time" ).map(ShellCommand::parseTimestamp).orElse(null);
+        Long toOffset = getOption( words, "to-offset" ).map(Long::parseLong).orElse(null);
+        long maxMessages = getOption( words, "max-messages" ).map(Long::parseLong).orElse(Long.MAX_VALUE);
+        boolean bounded = toTime != null || toOffset != null;
+        Optional<String> group = getOption( words, "group" );
+        // only a named group subscribes, otherwise every partition is assigned to a pooled consumer
+        String partitionSpec = getOption( words, "partitions" ).orElse( getOption( words, "partition" )
+                .orElse( group.isPresent() && !bounded && fromTime == null ? null : "all" ) );
+        Optional<Integer> workerCount = getOption( words, "workers" ).map(Integer::parseInt);
+        String outputFile = getOption( words, "output" ).orElse(null);
+        long flushMs = getOption( words, "flush.ms" ).map(Long::parseLong).orElse(BufferedOutputSink.DEFAULT_FLUSH_MS);
+        int flushBytes = getOption( words, "flush.bytes" ).map(Integer::parseInt).orElse(BufferedOutputSink.DEFAULT_CAPACITY);
+        int timeoutMs = getOption( words, "timeout" ).map(Integer::parseInt).orElse(DEFAULT_TIMEOUT_MS);
+
+        Map<String,Object> consumerConfig = new HashMap<>();
+        addOption( consumerConfig, ConsumerConfig.MAX_POLL_RECORDS_CONFIG, getOption( words, "max.poll.records" ).orElse(null) );
+        addOption( consumerConfig, ConsumerConfig.GROUP_ID_CONFIG, group.orElse(null) );
 
         BitSet printSet = new BitSet(6);
         if( hasOption(words, "print.timestamp") ) printSet.set(0);
@@ -130,82 +185,172 @@ public class ConsumeTopicCommand extends ShellCommand {
         addOption( formatConfig,"print.partition", Boolean.toString(printSet.get(4)) );
         addOption( formatConfig,"print.value", Boolean.toString(printSet.get(5)) );
 
-        addOption( formatConfig,"key.separator", getOption(words, "key.separator" ) );
-        addOption( formatConfig,"line.separator", getOption(words, "line.separator" ) );
-        addOption( formatConfig,"headers.separator", getOption(words, "headers.separator" ) );
-        addOption( formatConfig,"null.literal", getOption( words, "null.literal" ) );
+        addOption( formatConfig,"key.separator", getOption(words, "key.separator" ).orElse(null) );
+        addOption( formatConfig,"line.separator", getOption(words, "line.separator" ).orElse(null) );
+        addOption( formatConfig,"headers.separator", getOption(words, "headers.separator" ).orElse(null) );
+        addOption( formatConfig,"null.literal", getOption( words, "null.literal" ).orElse(null) );
 
-        addOption( formatConfig,"key.deserializer", getOption(words, "key.deserializer" ) );
-        addOption( formatConfig,"value.deserializer", getOption(words, "value.deserializer" ) );
-        addOption( formatConfig,"headers.deserializer", getOption(words, "headers.deserializer" ) );
+        addOption( formatConfig,"key.deserializer", getOption(words, "key.deserializer" ).orElse(null) );
+        addOption( formatConfig,"value.deserializer", getOption(words, "value.deserializer" ).orElse(null) );
+        addOption( formatConfig,"headers.deserializer", getOption(words, "headers.deserializer" ).orElse(null) );
 
-        MessageFormatter formatter = new DefaultMessageFormatter();
-        formatter.configure( formatConfig );
+        // only kafka's formatter understands deserializers, so asking for one picks it unless a format was given
+        boolean deserializing = formatConfig.keySet().stream().anyMatch( key -> key.endsWith(".deserializer") );
+        String formatName = getOption( words, "format" ).orElse( deserializing ? "kafka" : RecordFormatters.DEFAULT );
+        Supplier<RecordFormatter> formatter = RecordFormatters.find( formatName );
+        if( formatter == null ) {
+            printf("Unknown format %s, expected one of %s%n", formatName, String.join(", ", RecordFormatters.getNames()));
+            return;
+        }
+        if( deserializing && !"kafka".equalsIgnoreCase( formatName ) ) println("Deserializers are only used with format kafka, ignoring them.");
+        Optional<String> decode = getOption( words, "decode" );
+        if( decode.isPresent() && !"avro".equalsIgnoreCase( decode.get() ) ) {
+            printf("Unknown decoding %s, only avro is supported%n", decode.get());
+            return;
+        }
+        // values only unless asked, keys written by LongSerializer and friends often start with a zero byte
+        String decodeSide = getOption( words, "avro" ).orElse( "value" ).toLowerCase();
+        if( !decodeSide.equals("key") && !decodeSide.equals("both") ) decodeSide = "value";
+        boolean decodeKeys = !decodeSide.equals("value");
+        boolean decodeValues = !decodeSide.equals("key");
+        SchemaCache schemas = !decode.isPresent() ? null : getOption( words, "schemas" )
+                .map( dir -> new SchemaCache( new File( dir ), SchemaCache.DEFAULT_SIZE ) )
+                .orElseGet( () -> app.getSession().getSchemaCache() );
+        FormatOptions formatOptions = new FormatOptions( formatConfig );
+        Supplier<RecordFormatter> formatterFactory = () -> {
+            RecordFormatter instance = schemas != null ? new DecodingFormatter( formatter.get(), schemas, decodeKeys, decodeValues ) : formatter.get();
+            instance.configure( formatOptions );
+            return instance;
+        };
 
         int count = 0;
         printf("Reading from topic %s - Press Q to quit%n", topic);
         getTerminal().writer().flush();
         NonBlockingReader reader = getTerminal().reader();
-        try(Consumer<byte[],byte[]> consumer = getConsumer()) {
-
-            consumer.subscribe(Collections.singletonList(topic), new ConsumerRebalanceListener() {
-                @Override
-                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {}
+        try(Consumer<byte[],byte[]> consumer = getConsumer( consumerConfig );
+            WritableByteChannel channel = openOutput( outputFile );
+            OutputSink output = new BufferedOutputSink( channel, outputFile == null ? getTerminal().output() : null, BufferedOutputSink.DEFAULT_CAPACITY, flushMs, flushBytes ) ) {
 
-                @Override
-                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
-                    partitions.forEach((TopicPartition tp) -> {
-                        if( "beginning".equalsIgnoreCase(offset) ) {
-                            consumer.seekToBeginning( Collections.singletonList(tp) );
-                        } else if( "latest".equalsIgnoreCase(offset) ) {
-                            consumer.seekToEnd(Collections.singletonList(tp));
-                        } else if( offset != null ) {
-                            consumer.seek( tp, Long.parseLong(offset) );
-                        }
-                    });
+            int partitionCount;
+            ConsumeBounds bounds = new ConsumeBounds( null, maxMessages );
+            if( partitionSpec != null ) {
+                List<TopicPartition> assignment = resolvePartitions( consumer, topic, partitionSpec );
+                consumer.assign( assignment );
+                if( fromTime != null ) {
+                    ConsumeBounds.seekToTime( consumer, assignment, fromTime );
+                } else {
+                    seek( consumer, assignment, offset );
                 }
-            });
+                if( bounded ) bounds = ConsumeBounds.resolve( consumer, assignment, toTime, toOffset, maxMessages );
+                partitionCount = assignment.size();
+            } else {
+                consumer.subscribe(Collections.singletonList(topic), new ConsumerRebalanceListener() {
+                    @Override
+                    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {}
+
+                    @Override
+                    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                        seek( consumer, partitions, offset );
+                    }
+                });
+                partitionCount = consumer.partitionsFor( topic ).size();
+            }
 
-            do {
-                try {
-                    ConsumerRecords<byte[], byte[]> cr = consumer.poll(Duration.ofMillis(timeoutMs));
-                    for (ConsumerRecord<byte[], byte[]> rec : cr.records(partition)) {
-                        count++;
-                        formatter.writeTo(rec, output);
+            int cores = Runtime.getRuntime().availableProcessors();
+            try( RecordFormatterPool pool = new RecordFormatterPool( workerCount.orElse( Math.max( 1, Math.min(partitionCount, cores) ) ), formatterFactory, ordered, skipErrors );
+                 KeyboardWatcher watcher = new KeyboardWatcher( getTerminal(), consumer::wakeup ) ) {
+                Duration timeout = Duration.ofMillis(timeoutMs);
+                ShellStats stats = app.getStats();
+                stats.watch( consumer );
+                bounds.update( consumer );
+                while( !watcher.isQuit() && !bounds.isDone() ) {
+                    try {
+                        long polling = System.nanoTime();
+                        ConsumerRecords<byte[], byte[]> cr = consumer.poll(timeout);
+                        long formatting = System.nanoTime();
+                        stats.recordPoll( formatting - polling, cr.count() );
+                        if( filter != null ) cr = filter.apply( cr );
+                        cr = bounds.apply( cr );
+                        count += pool.write( cr, output );
+                        stats.recordFormat( System.nanoTime() - formatting );
+                        bounds.update( consumer );
+                    } catch( WakeupException wex ) {
+                        println("Interrupted.  Closing consumer.");
+                        break;
+                    } catch( IOException ioe ) {
+                        throw ioe;
+                    } catch (Throwable t) {
+                        if (!skipErrors) throw t;
                     }
-                } catch( WakeupException wex ) {
-                    println("Interrupted.  Closing consumer.");
-                    break;
-                } catch (Throwable t) {
-                    if (!skipErrors) throw t;
                 }
-            } while (!checkError(output) && !shouldWeQuit(reader));
+            } finally {
+                // the consumer goes back to the pool on close and mustn't be read after that
+                app.getStats().unwatch( consumer );
+            }
+            if( bounds.isDone() ) {
+                // nothing left to read: a pooled consumer goes back to the pool now, while a group's own
+                // consumer closes without waiting on the coordinator to leave the group gracefully
+                consumer.close( Duration.ZERO );
+                output.flush();
+                println("Reached the end of the requested range.");
+            }
         } catch( IOException ioe ) {
-            println("Error while reading from the console. Closing consumer.");
+            println("Error encountered writing to the output.  Closing the consumer.");
         } finally {
             reader.shutdown();
         }
 
         printf("Received %,d messages%n", count);
+        if( outputFile != null ) printf("Wrote to %s%n", outputFile);
     }
 
-    private void addOption(Map<String, Object> formatConfig, String key, Object value) {
-        if( value != null ) {
-            formatConfig.put( key, value );
+    private WritableByteChannel openOutput(String outputFile) throws IOException {
+        if( outputFile == null ) {
+            // the terminal outlives the command, closing the channel must only flush it
+            return Channels.newChannel( new FilterOutputStream( getTerminal().output() ) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write( b, off, len );
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            });
         }
+        return FileChannel.open( Paths.get(outputFile), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING );
     }
 
-    private boolean shouldWeQuit(NonBlockingReader reader) throws IOException {
-        int v = reader.read(50);
-        return ((char) v) == 'q';
+    private List<TopicPartition> resolvePartitions(Consumer<byte[],byte[]> consumer, String topic, String partitionSpec) {
+        if( "all".equalsIgnoreCase(partitionSpec) ) {
+            return consumer.partitionsFor( topic ).stream()
+                    .map( info -> new TopicPartition( topic, info.partition() ) )
+                    .sorted( Comparator.comparingInt(TopicPartition::partition) )
+                    .collect(Collectors.toList());
+        }
+        return Arrays.stream( partitionSpec.split(",") )
+                .map( String::trim )
+                .filter( p -> !p.isEmpty() )
+                .map( p -> new TopicPartition( topic, Integer.parseInt(p) ) )
+                .collect(Collectors.toList());
     }
 
-    private boolean checkError(PrintStream output) {
-        if( output.checkError() ) {
-            println("Error encountered writing to the output.  Closing the consumer.");
-            return true;
+    private void seek(Consumer<byte[],byte[]> consumer, Collection<TopicPartition> partitions, String offset) {
+        if( "beginning".equalsIgnoreCase(offset) ) {
+            consumer.seekToBeginning( partitions );
+        } else if( "latest".equalsIgnoreCase(offset) ) {
+            consumer.seekToEnd( partitions );
+        } else if( offset != null ) {
+            long position = Long.parseLong(offset);
+            partitions.forEach( tp -> consumer.seek( tp, position ) );
+        }
+    }
+
+    private void addOption(Map<String, Object> formatConfig, String key, Object value) {
+        if( value != null ) {
+            formatConfig.put( key, value );
         }
-        return false;
     }
 
 }
@@ -0,0 +1,165 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The committed offset of one consumer group on one partition along with that partition's log start and
+ * end offsets.  {@link #fetch(AdminClient, Collection)} gathers these for any number of groups with a fixed
+ * number of round trips: the committed offsets of every group are requested at once, then the earliest and
+ * latest offsets of every partition any of them has committed are requested in two batched listOffsets
+ * calls.  Lag is computed locally from the results.  Every group and partition has its own result, so
+ * one that fails is reported without losing the rest.
+ */
+public class ConsumerLag {
+
+    private final String groupId;
+    private final TopicPartition partition;
+    private final long logStartOffset;
+    private final long logEndOffset;
+    private final long committedOffset;
+
+    public ConsumerLag(String groupId, TopicPartition partition, long logStartOffset, long logEndOffset, long committedOffset) {
+        this.groupId = groupId;
+        this.partition = partition;
+        this.logStartOffset = logStartOffset;
+        this.logEndOffset = logEndOffset;
+        this.committedOffset = committedOffset;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public TopicPartition getPartition() {
+        return partition;
+    }
+
+    public long getLogStartOffset() {
+        return logStartOffset;
+    }
+
+    public long getLogEndOffset() {
+        return logEndOffset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    public long getLag() {
+        return Math.max( 0, logEndOffset - Math.max( committedOffset, logStartOffset ) );
+    }
+
+    public static final Comparator<ConsumerLag> ORDER = Comparator.comparing(ConsumerLag::getGroupId)
+            .thenComparing( l -> l.getPartition().topic() )
+            .thenComparingInt( l -> l.getPartition().partition() );
+
+    /**
+     * Like {@link #fetchReport(AdminClient, Collection)} but fails if any group or partition couldn't be
+     * looked up.
+     */
+    public static CompletableFuture<List<ConsumerLag>> fetch(AdminClient admin, Collection<String> groupIds) {
+        return fetchReport( admin, groupIds ).thenApply( report -> {
+            if( !report.getFailures().isEmpty() ) throw new CompletionException( report.getFailures().values().iterator().next() );
+            return report.getLags();
+        });
+    }
+
+    /**
+     * Gathers the lag of every group, leaving out the groups and partitions that couldn't be looked up,
+     * e.g. a group the principal isn't authorized for or a partition without a leader, and listing them
+     * in the report's failures instead.
+     */
+    public static CompletableFuture<Report> fetchReport(AdminClient admin, Collection<String> groupIds) {
+        Map<String,CompletableFuture<Map<TopicPartition,OffsetAndMetadata>>> committed = new TreeMap<>();
+        for( String groupId : groupIds ) {
+            committed.put( groupId, KafkaFutures.toCompletable( admin.listConsumerGroupOffsets( groupId ).partitionsToOffsetAndMetadata() ) );
+        }
+
+        return KafkaFutures.allSettled( committed.values() ).thenCompose( ignore -> {
+            Set<TopicPartition> partitions = new HashSet<>();
+            committed.values().stream()
+                    .filter( future -> KafkaFutures.failure( future ) == null )
+                    .forEach( future -> partitions.addAll( future.join().keySet() ) );
+            Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> earliest = listOffsetsByPartition( admin, partitions, OffsetSpec.earliest() );
+            Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> latest = listOffsetsByPartition( admin, partitions, OffsetSpec.latest() );
+            List<CompletableFuture<?>> all = new ArrayList<>( earliest.values() );
+            all.addAll( latest.values() );
+            return KafkaFutures.allSettled( all ).thenApply( ignored -> collect( committed, earliest, latest ) );
+        });
+    }
+
+    /**
+     * Computes the lags from lookups that have all completed, one way or the other.
+     */
+    static Report collect(Map<String,CompletableFuture<Map<TopicPartition,OffsetAndMetadata>>> committed,
+                          Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> earliest,
+                          Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> latest) {
+        Report report = new Report();
+        committed.forEach( (groupId, future) -> {
+            Throwable groupError = KafkaFutures.failure( future );
+            if( groupError != null ) {
+                report.failures.put( "group " + groupId, groupError );
+                return;
+            }
+            future.join().forEach( (tp, offset) -> {
+                if( offset == null ) return;
+                Throwable error = KafkaFutures.failure( earliest.get( tp ) );
+                if( error == null ) error = KafkaFutures.failure( latest.get( tp ) );
+                if( error != null ) {
+                    // keyed by partition so it's reported once however many groups read it
+                    report.failures.put( "partition " + tp, error );
+                    return;
+                }
+                report.lags.add( new ConsumerLag( groupId, tp, earliest.get( tp ).join().offset(), latest.get( tp ).join().offset(), offset.offset() ) );
+            });
+        });
+        report.lags.sort( ORDER );
+        return report;
+    }
+
+    /**
+     * Sends a single listOffsets request for all the partitions but hands back each partition's own result
+     * so one failing partition doesn't fail the rest.
+     */
+    public static Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> listOffsetsByPartition(AdminClient admin, Collection<TopicPartition> partitions, OffsetSpec spec) {
+        if( partitions.isEmpty() ) return Collections.emptyMap();
+        Map<TopicPartition,OffsetSpec> request = new HashMap<>();
+        partitions.forEach( tp -> request.put( tp, spec ) );
+        ListOffsetsResult result = admin.listOffsets( request );
+        Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> futures = new HashMap<>();
+        partitions.forEach( tp -> futures.put( tp, KafkaFutures.toCompletable( result.partitionResult( tp ) ) ) );
+        return futures;
+    }
+
+    public static CompletableFuture<Map<TopicPartition,ListOffsetsResult.ListOffsetsResultInfo>> listOffsets(AdminClient admin, Collection<TopicPartition> partitions, OffsetSpec spec) {
+        if( partitions.isEmpty() ) return CompletableFuture.completedFuture( Collections.emptyMap() );
+        Map<TopicPartition,OffsetSpec> request = new HashMap<>();
+        partitions.forEach( tp -> request.put( tp, spec ) );
+        return KafkaFutures.toCompletable( admin.listOffsets( request ).all() );
+    }
+
+    /**
+     * The lags that could be gathered along with what couldn't be looked up, by group or partition.
+     */
+    public static class Report {
+        private final List<ConsumerLag> lags = new ArrayList<>();
+        private final SortedMap<String,Throwable> failures = new TreeMap<>();
+
+        public List<ConsumerLag> getLags() {
+            return lags;
+        }
+
+        public SortedMap<String,Throwable> getFailures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps group-less consumers open between commands so a repeated consume or scan reuses a consumer that
+ * already has its broker connections, authentication and metadata, and never joins a group.  Consumers
+ * are keyed by the profile and the overrides they were created with.
+ *
+ * A borrowed consumer is a proxy whose close() hands it back to the pool instead of closing it.  On
+ * return its assignment and paused partitions are cleared with unsubscribe().  A consumer that was woken
+ * up is closed instead, since its next poll would throw the pending wakeup at whoever borrowed it next.
+ * Consumers sitting idle longer than the idle timeout are closed in the background.
+ */
+public class ConsumerPool implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger( ConsumerPool.class );
+
+    public static final long DEFAULT_IDLE_MS = TimeUnit.MINUTES.toMillis(5);
+    public static final int MAX_IDLE_PER_KEY = 4;
+
+    private final Map<Object,Deque<Idle>> idle = new HashMap<>();
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread thread = new Thread( r, "consumer-pool-evictor" );
+        thread.setDaemon( true );
+        return thread;
+    });
+    private volatile long idleMs;
+
+    public ConsumerPool(long idleMs) {
+        this.idleMs = idleMs;
+        evictor.scheduleWithFixedDelay( this::evict, 10, 10, TimeUnit.SECONDS );
+    }
+
+    public void setIdleMs(long idleMs) {
+        this.idleMs = idleMs;
+    }
+
+    /**
+     * Hands out an idle consumer for the key, or a new one from the factory when there isn't one.
+     */
+    @SuppressWarnings("unchecked")
+    public Consumer<byte[],byte[]> borrow(Object key, Supplier<Consumer<byte[],byte[]>> factory) {
+        Consumer<byte[],byte[]> consumer = null;
+        synchronized( this ) {
+            Deque<Idle> available = idle.get( key );
+            if( available != null && !available.isEmpty() ) consumer = available.pop().consumer;
+        }
+        if( consumer == null ) consumer = factory.get();
+        return (Consumer<byte[],byte[]>) Proxy.newProxyInstance( Consumer.class.getClassLoader(),
+                new Class<?>[] { Consumer.class }, new Borrowed( key, consumer ) );
+    }
+
+    private void release(Object key, Consumer<byte[],byte[]> consumer, boolean reusable) {
+        if( reusable ) {
+            try {
+                consumer.unsubscribe();
+            } catch( RuntimeException e ) {
+                logger.warn("Could not reset a pooled consumer", e);
+                reusable = false;
+            }
+        }
+        if( reusable ) {
+            synchronized( this ) {
+                Deque<Idle> available = idle.computeIfAbsent( key, k -> new ArrayDeque<>() );
+                if( available.size() < MAX_IDLE_PER_KEY ) {
+                    available.push( new Idle( consumer ) );
+                    return;
+                }
+            }
+        }
+        closeQuietly( consumer );
+    }
+
+    /**
+     * @return the number of consumers waiting in the pool.
+     */
+    public synchronized int getIdleCount() {
+        return idle.values().stream().mapToInt( Deque::size ).sum();
+    }
+
+    void evict() {
+        long cutoff = System.currentTimeMillis() - idleMs;
+        List<Consumer<byte[],byte[]>> expired = new ArrayList<>();
+        synchronized( this ) {
+            for( Deque<Idle> available : idle.values() ) {
+                // the oldest are at the bottom of the stack
+                while( !available.isEmpty() && available.peekLast().since <= cutoff ) expired.add( available.removeLast().consumer );
+            }
+            idle.values().removeIf( Deque::isEmpty );
+        }
+        expired.forEach( this::closeQuietly );
+    }
+
+    private void closeQuietly(Consumer<byte[],byte[]> consumer) {
+        try {
+            consumer.close( Duration.ZERO );
+        } catch( RuntimeException e ) {
+            logger.warn("Error closing a pooled consumer", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        List<Consumer<byte[],byte[]>> all = new ArrayList<>();
+        synchronized( this ) {
+            idle.values().forEach( available -> available.forEach( i -> all.add( i.consumer ) ) );
+            idle.clear();
+        }
+        all.forEach( this::closeQuietly );
+    }
+
+    private static class Idle {
+        final Consumer<byte[],byte[]> consumer;
+        final long since = System.currentTimeMillis();
+
+        Idle(Consumer<byte[],byte[]> consumer) {
+            this.consumer = consumer;
+        }
+    }
+
+    private class Borrowed implements InvocationHandler {
+        final Object key;
+        final Consumer<byte[],byte[]> consumer;
+        volatile boolean wokenUp = false;
+        volatile boolean released = false;
+
+        Borrowed(Object key, Consumer<byte[],byte[]> consumer) {
+            this.key = key;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch( method.getName() ) {
+                case "close":
+                    synchronized( this ) {
+                        if( !released ) release( key, consumer, !wokenUp );
+                        released = true;
+                    }
+                    return null;
+                case "wakeup":
+                    synchronized( this ) {
+                        // a late wakeup, e.g. from a keyboard watcher, must not reach whoever borrows it next
+                        if( !released ) {
+                            wokenUp = true;
+                            consumer.wakeup();
+                        }
+                    }
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode( proxy );
+                case "toString":
+                    return "pooled " + consumer;
+                default:
+                    if( released ) throw new IllegalStateException("This consumer has already been closed.");
+                    break;
+            }
+            try {
+                return method.invoke( consumer, args );
+            } catch( InvocationTargetException e ) {
+                throw e.getCause();
+            }
+        }
+    }
+}
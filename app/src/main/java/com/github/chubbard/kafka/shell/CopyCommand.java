@@ -0,0 +1,241 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class CopyCommand extends ShellCommand {
+
+    public static final int DEFAULT_QUEUE_BATCHES = 8;
+    public static final long COMMIT_INTERVAL_MS = 1000;
+
+    private static final ConsumerRecords<byte[],byte[]> END = new ConsumerRecords<>( Collections.emptyMap() );
+
+    public CopyCommand(App app) {
+        super(app);
+
+        help = String.format(
+                String.join( "%n%1$20s",
+                        "<source topic> <destination topic>",
+                        "[preserve-partitions]",
+                        "[group <group_id>]",
+                        "[from-time <timestamp>]",
+                        "[to-time <timestamp>]",
+                        "[to-offset <numeric>]",
+                        "[max-messages <numeric>]",
+                        "[follow]",
+                        "[queue <batches>]",
+                        "Copies up to the current end of the source unless follow is given.",
+                        "With a group the source offsets are committed once the destination acks them."
+                ), ""
+        );
+    }
+
+    @Override
+    public String getCommand() {
+        return "copy";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("copy",
+                        node(topicCompleter(),
+                                node(topicCompleter(),
+                                        node("preserve-partitions"),
+                                        node("group", node(groupCompleter())),
+                                        node("from-time", "to-time", "to-offset", "max-messages"),
+                                        node("follow"),
+                                        node("queue")
+                                )
+                        )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 3 ) {
+            println("Syntax error!  Usage: copy <source topic> <destination topic>");
+            return;
+        }
+        String source = words.get(1);
+        String destination = words.get(2);
+        if( source.equals( destination ) ) {
+            println("The source and destination topics must be different.");
+            return;
+        }
+        boolean preservePartitions = hasOption( words, "preserve-partitions" );
+        Optional<String> group = getOption( words, "group" );
+        Long fromTime = getOption( words, "from-time" ).map(ShellCommand::parseTimestamp).orElse(null);
+        Long toTime = getOption( words, "to-time" ).map(ShellCommand::parseTimestamp).orElse(null);
+        Long toOffset = getOption( words, "to-offset" ).map(Long::parseLong).orElse(null);
+        long maxMessages = getOption( words, "max-messages" ).map(Long::parseLong).orElse(Long.MAX_VALUE);
+        boolean follow = hasOption( words, "follow" );
+        int queueSize = getOption( words, "queue" ).map(Integer::parseInt).orElse(DEFAULT_QUEUE_BATCHES);
+
+        Map<String,Object> consumerConfig = new HashMap<>();
+        consumerConfig.put( ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false" );
+        consumerConfig.put( ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest" );
+        consumerConfig.put( ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "5000" );
+        group.ifPresent( g -> consumerConfig.put( ConsumerConfig.GROUP_ID_CONFIG, g ) );
+
+        Map<String,Object> producerConfig = new HashMap<>();
+        producerConfig.put( ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true" );
+        producerConfig.put( ProducerConfig.ACKS_CONFIG, "all" );
+        producerConfig.put( ProducerConfig.LINGER_MS_CONFIG, ProduceCommand.DEFAULT_LINGER_MS );
+        producerConfig.put( ProducerConfig.BATCH_SIZE_CONFIG, ProduceCommand.DEFAULT_BATCH_SIZE );
+
+        BlockingQueue<ConsumerRecords<byte[],byte[]>> queue = new ArrayBlockingQueue<>( queueSize );
+        AckedOffsets acked = new AckedOffsets();
+        CopyProgress progress = new CopyProgress();
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        try( Consumer<byte[],byte[]> consumer = getConsumer( consumerConfig );
+             Producer<byte[],byte[]> producer = getProducer( producerConfig ) ) {
+            List<TopicPartition> partitions = consumer.partitionsFor( source ).stream()
+                    .map( info -> new TopicPartition( source, info.partition() ) )
+                    .collect(Collectors.toList());
+            int destinationPartitions = producer.partitionsFor( destination ).size();
+            if( preservePartitions && destinationPartitions != partitions.size() ) {
+                printf("Warning: %s has %d partitions and %s has %d, source partitions will wrap around.%n",
+                        source, partitions.size(), destination, destinationPartitions);
+            }
+
+            consumer.assign( partitions );
+            if( fromTime != null ) ConsumeBounds.seekToTime( consumer, partitions, fromTime );
+            ConsumeBounds bounds = follow && toTime == null && toOffset == null
+                    ? new ConsumeBounds( null, maxMessages )
+                    : ConsumeBounds.resolve( consumer, partitions, toTime, toOffset, maxMessages );
+
+            printf("Copying %s to %s - Press Q to quit%n", source, destination);
+            getTerminal().writer().flush();
+            try( KeyboardWatcher watcher = new KeyboardWatcher( getTerminal(), consumer::wakeup ) ) {
+                Future<?> sending = sender.submit( () -> send( producer, destination, preservePartitions ? destinationPartitions : 0, queue, acked, progress, watcher ) );
+                long lastCommit = System.currentTimeMillis();
+                int width = 0;
+                try {
+                    bounds.update( consumer );
+                    while( !bounds.isDone() && !watcher.isQuit() && !sending.isDone() ) {
+                        ConsumerRecords<byte[],byte[]> records = bounds.apply( consumer.poll( Duration.ofMillis(ConsumeTopicCommand.DEFAULT_TIMEOUT_MS) ) );
+                        if( !records.isEmpty() ) enqueue( queue, records, sending, watcher );
+                        bounds.update( consumer );
+                        if( System.currentTimeMillis() - lastCommit >= COMMIT_INTERVAL_MS ) {
+                            if( group.isPresent() ) consumer.commitAsync( acked.committable(), null );
+                            width = printProgress( progress, width );
+                            lastCommit = System.currentTimeMillis();
+                        }
+                    }
+                } catch( WakeupException ex ) {
+                    // quit was pressed, let the sender finish what it already took
+                }
+                enqueue( queue, END, sending, null );
+                try {
+                    sending.get();
+                } catch( ExecutionException ex ) {
+                    progress.error.compareAndSet( null, ex.getCause() );
+                }
+                if( width > 0 ) printf("\r%" + width + "s\r", "");
+            }
+            if( group.isPresent() ) {
+                try {
+                    consumer.commitSync( acked.committable() );
+                } catch( WakeupException ex ) {
+                    // Q pressed while waiting on the queue leaves the wakeup pending, throwing it cleared it
+                    consumer.commitSync( acked.committable() );
+                }
+            }
+        } finally {
+            sender.shutdownNow();
+        }
+
+        progress.report( group.orElse(null) );
+    }
+
+    private void enqueue(BlockingQueue<ConsumerRecords<byte[],byte[]>> queue, ConsumerRecords<byte[],byte[]> records,
+                         Future<?> sending, KeyboardWatcher watcher) throws InterruptedException {
+        // the queue is bounded so a slow destination holds the consumer back instead of piling up records
+        while( !queue.offer( records, 100, TimeUnit.MILLISECONDS ) ) {
+            if( sending.isDone() || (watcher != null && watcher.isQuit()) ) return;
+        }
+    }
+
+    /**
+     * Runs on the sender thread.  Records are sent as the raw bytes the consumer fetched with the source
+     * timestamp and headers, and each source offset is tracked until the destination acks it.  Stops early
+     * when quit is pressed or a send fails, and flushes whatever was handed to the producer before returning.
+     */
+    private void send(Producer<byte[],byte[]> producer, String destination, int destinationPartitions,
+                      BlockingQueue<ConsumerRecords<byte[],byte[]>> queue, AckedOffsets acked, CopyProgress progress,
+                      KeyboardWatcher watcher) {
+        try {
+            ConsumerRecords<byte[],byte[]> records;
+            while( (records = queue.take()) != END && !watcher.isQuit() && progress.error.get() == null ) {
+                for( ConsumerRecord<byte[],byte[]> rec : records ) {
+                    TopicPartition tp = new TopicPartition( rec.topic(), rec.partition() );
+                    Integer partition = destinationPartitions > 0 ? Math.floorMod( rec.partition(), destinationPartitions ) : null;
+                    long offset = rec.offset();
+                    int size = Math.max( 0, rec.serializedKeySize() ) + Math.max( 0, rec.serializedValueSize() );
+                    acked.sent( tp, offset );
+                    producer.send( new ProducerRecord<>( destination, partition, rec.timestamp(), rec.key(), rec.value(), rec.headers() ), (metadata, exception) -> {
+                        if( exception != null ) {
+                            progress.error.compareAndSet( null, exception );
+                        } else {
+                            acked.acked( tp, offset );
+                            progress.records.incrementAndGet();
+                            progress.bytes.addAndGet( size );
+                        }
+                    });
+                }
+            }
+        } catch( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+        } finally {
+            producer.flush();
+        }
+    }
+
+    private int printProgress(CopyProgress progress, int width) {
+        String status = progress.status();
+        printf("\r%-" + Math.max( width, status.length() ) + "s", status);
+        getTerminal().writer().flush();
+        return Math.max( width, status.length() );
+    }
+
+    private class CopyProgress {
+        final long start = System.currentTimeMillis();
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        String status() {
+            double seconds = Math.max( 1, System.currentTimeMillis() - start ) / 1000.0;
+            return String.format("Copied %,d records (%,d bytes) in %.1fs: %,.0f records/s %.2f MB/s",
+                    records.get(), bytes.get(), seconds, records.get() / seconds, bytes.get() / seconds / (1024 * 1024));
+        }
+
+        void report(String group) {
+            println( status() );
+            if( group != null ) printf("Committed source offsets for group %s up to the last acknowledged record.%n", group);
+            if( error.get() != null ) printf("Copy stopped on error: %s%n", error.get().getMessage());
+        }
+    }
+}
@@ -14,7 +14,7 @@ import java.util.concurrent.ExecutionException;
 
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
-public class CreateCommand extends ShellCommand {
+public class CreateCommand extends ShellCommand implements BatchableCommand {
 
     public CreateCommand(App app) {
         super(app);
@@ -46,9 +46,7 @@ public class CreateCommand extends ShellCommand {
         String type = words.get(1);
         switch( type ) {
             case "topic":
-                int partitions = getOption( words, "partitions" ).map(Integer::parseInt).orElse(1);
-                short replicationFactor = getOption( words, "replication" ).map(Short::parseShort).orElse( (short)3 );
-                createTopic( words.get(2), partitions, replicationFactor );
+                createTopic( newTopic( words ) );
                 break;
             default:
                 printf("Unknown type %s%n",type);
@@ -56,10 +54,27 @@ public class CreateCommand extends ShellCommand {
         }
     }
 
-    private void createTopic(String topicName, int partitions, short replicationFactor ) throws ExecutionException, InterruptedException {
-        NewTopic topic = new NewTopic(topicName, partitions, replicationFactor);
+    @Override
+    public boolean isBatchable(List<String> words) {
+        return words.size() > 2 && "topic".equals( words.get(1) );
+    }
+
+    @Override
+    public boolean addTo(AdminBatch batch, List<String> words) {
+        NewTopic topic = newTopic( words );
+        return batch.createTopic( topic, String.format("Topic %s was created.", topic.name()) );
+    }
+
+    private NewTopic newTopic(List<String> words) {
+        int partitions = getOption( words, "partitions" ).map(Integer::parseInt).orElse(1);
+        short replicationFactor = getOption( words, "replication" ).map(Short::parseShort).orElse( (short)3 );
+        return new NewTopic( words.get(2), partitions, replicationFactor );
+    }
+
+    private void createTopic(NewTopic topic) throws ExecutionException, InterruptedException {
         CreateTopicsResult res = getAdminClient().createTopics( Collections.singleton(topic) );
         res.all().get();
-        printf("Topic %s was created.%n", topicName);
+        getMetadataCache().invalidate( MetadataCache.Kind.TOPICS );
+        printf("Topic %s was created.%n", topic.name());
     }
 }
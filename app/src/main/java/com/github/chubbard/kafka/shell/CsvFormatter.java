@@ -0,0 +1,72 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.util.Iterator;
+
+/**
+ * Writes each record as an RFC 4180 CSV row holding the fields chosen with the print.* options in the
+ * order timestamp, partition, offset, headers, key, value.  The timestamp is in epoch millis.  Headers
+ * share one quoted column as key:value pairs joined by headers.separator.  Null keys and values are
+ * left empty.  No header row is written.
+ */
+public class CsvFormatter implements RecordFormatter {
+
+    private FormatOptions options;
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public void configure(FormatOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public void writeTo(ConsumerRecord<byte[],byte[]> record, FormatBuffer out) {
+        boolean first = true;
+        if( options.isPrintTimestamp() ) {
+            out.appendLong( record.timestamp() );
+            first = false;
+        }
+        if( options.isPrintPartition() ) {
+            comma( out, first ).appendLong( record.partition() );
+            first = false;
+        }
+        if( options.isPrintOffset() ) {
+            comma( out, first ).appendLong( record.offset() );
+            first = false;
+        }
+        if( options.isPrintHeaders() ) {
+            comma( out, first ).append( (byte) '"' );
+            first = false;
+            Iterator<Header> headers = record.headers().iterator();
+            while( headers.hasNext() ) {
+                Header header = headers.next();
+                out.appendUtf8( header.key() ).append( (byte) ':' );
+                if( header.value() != null ) out.appendCsvQuoted( header.value() );
+                if( headers.hasNext() ) out.appendCsvQuoted( options.getHeadersSeparator() );
+            }
+            out.append( (byte) '"' );
+        }
+        if( options.isPrintKey() ) {
+            appendData( comma( out, first ), record.key() );
+            first = false;
+        }
+        if( options.isPrintValue() ) {
+            appendData( comma( out, first ), record.value() );
+        }
+        out.append( options.getLineSeparator() );
+    }
+
+    private FormatBuffer comma(FormatBuffer out, boolean first) {
+        return first ? out : out.append( (byte) ',' );
+    }
+
+    private void appendData(FormatBuffer out, byte[] data) {
+        if( data != null ) out.appendCsvField( data );
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.Arrays;
+
+/**
+ * Decodes framed Avro keys, values or both to JSON before handing the record to the formatter it wraps, so
+ * decoding runs on the format workers alongside formatting.  Only the sides asked for are decoded, a key
+ * written by e.g. LongSerializer can start with a zero byte and look framed.  Data that isn't framed is
+ * passed through untouched.  Each worker wraps its own formatter, so each gets its own
+ * {@link AvroDecoder} while sharing the parsed schemas.
+ */
+public class DecodingFormatter implements RecordFormatter {
+
+    private final RecordFormatter formatter;
+    private final AvroDecoder decoder;
+    private final boolean keys;
+    private final boolean values;
+    private final FormatBuffer scratch = new FormatBuffer( 4096 );
+
+    public DecodingFormatter(RecordFormatter formatter, SchemaCache schemas, boolean keys, boolean values) {
+        this.formatter = formatter;
+        this.decoder = new AvroDecoder( schemas );
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public String getName() {
+        return formatter.getName();
+    }
+
+    @Override
+    public void configure(FormatOptions options) {
+        formatter.configure( options );
+    }
+
+    @Override
+    public void writeTo(ConsumerRecord<byte[],byte[]> record, FormatBuffer out) {
+        boolean key = keys && AvroDecoder.isFramed( record.key() );
+        boolean value = values && AvroDecoder.isFramed( record.value() );
+        if( !key && !value ) {
+            formatter.writeTo( record, out );
+            return;
+        }
+        formatter.writeTo( new ConsumerRecord<>( record.topic(), record.partition(), record.offset(),
+                record.timestamp(), record.timestampType(), null,
+                record.serializedKeySize(), record.serializedValueSize(),
+                key ? decode( record.key() ) : record.key(),
+                value ? decode( record.value() ) : record.value(),
+                record.headers(), record.leaderEpoch() ), out );
+    }
+
+    private byte[] decode(byte[] data) {
+        scratch.reset();
+        scratch.appendUtf8( decoder.decode( data ) );
+        return Arrays.copyOf( scratch.array(), scratch.size() );
+    }
+
+    @Override
+    public void close() {
+        formatter.close();
+    }
+}
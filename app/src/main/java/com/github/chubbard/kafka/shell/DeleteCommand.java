@@ -5,7 +5,6 @@ import org.apache.kafka.clients.admin.DeleteTopicsResult;
 import org.jline.builtins.Completers;
 import org.jline.reader.Completer;
 import org.jline.reader.ParsedLine;
-import org.jline.reader.impl.completer.StringsCompleter;
 
 import java.util.Collections;
 import java.util.List;
@@ -13,7 +12,7 @@ import java.util.concurrent.ExecutionException;
 
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
-public class DeleteCommand extends ShellCommand {
+public class DeleteCommand extends ShellCommand implements BatchableCommand {
 
     public DeleteCommand(App app) {
         super(app);
@@ -31,10 +30,10 @@ public class DeleteCommand extends ShellCommand {
         return new Completers.TreeCompleter(
                 node("delete",
                         node("topic",
-                                node(new StringsCompleter(this::getTopics))
+                                node(topicCompleter())
                         ),
                         node("group",
-                                node(new StringsCompleter(this::getGroups))
+                                node(groupCompleter())
                         )
                 )
         );
@@ -58,15 +57,31 @@ public class DeleteCommand extends ShellCommand {
         }
     }
 
+    @Override
+    public boolean isBatchable(List<String> words) {
+        return words.size() > 2 && ("topic".equals( words.get(1) ) || "group".equals( words.get(1) ));
+    }
+
+    @Override
+    public boolean addTo(AdminBatch batch, List<String> words) {
+        String name = words.get(2);
+        if( "group".equals( words.get(1) ) ) {
+            return batch.deleteGroup( name, String.format("Consumer group %s removed.", name) );
+        }
+        return batch.deleteTopic( name, String.format("Topic %s deleted.", name) );
+    }
+
     private void deleteGroup(String groupId) throws ExecutionException, InterruptedException {
         DeleteConsumerGroupsResult res = getAdminClient().deleteConsumerGroups(Collections.singleton(groupId));
         res.all().get();
+        getMetadataCache().invalidate( MetadataCache.Kind.GROUPS );
         printf("Consumer group %s removed.%n", groupId);
     }
 
     private void deleteTopic(String topic) throws ExecutionException, InterruptedException {
         DeleteTopicsResult result = getAdminClient().deleteTopics( Collections.singleton(topic) );
         result.all().get();
+        getMetadataCache().invalidate( MetadataCache.Kind.TOPICS );
         printf("Topic %s deleted.%n", topic);
     }
 }
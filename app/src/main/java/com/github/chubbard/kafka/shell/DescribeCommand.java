@@ -1,31 +1,34 @@
 package com.github.chubbard.kafka.shell;
 
 import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.ConsumerGroupState;
 import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.acl.AclOperation;
 import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.GroupIdNotFoundException;
 import org.jline.builtins.Completers;
 import org.jline.reader.Completer;
 import org.jline.reader.ParsedLine;
-import org.jline.reader.impl.completer.StringsCompleter;
 
 import java.util.*;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
-public class DescribeCommand extends ShellCommand {
+public class DescribeCommand extends ShellCommand implements ReadOnlyCommand {
 
     public DescribeCommand(App app) {
         super( app );
 
         help = String.format(String.join("%n%1$15s", Arrays.asList(
-                "topic <topic_name> [config name]",
-                "group <group_name>",
+                "topic <topic_name|glob> [config name]",
+                "group <group_name|glob>",
                 "cluster",
-                "broker <broker_id> [config name]")
+                "broker <broker_id> [config name]",
+                "Add --all-clusters to describe it on every connected cluster.")
         ), "");
     }
 
@@ -38,10 +41,10 @@ public class DescribeCommand extends ShellCommand {
     public Completer getCompleter() {
         return new Completers.TreeCompleter(
             node("describe",
-                    node("topic", node( new StringsCompleter(this::getTopics )) ),
-                    node("groups", node( new StringsCompleter(this::getGroups )) ),
-                    node("cluster"),
-                    node("broker", node( new StringsCompleter(this::getBrokers )) )
+                    node("topic", node( topicCompleter()) ),
+                    node("group", node( groupCompleter()) ),
+                    node("cluster", node(App.ALL_CLUSTERS)),
+                    node("broker", node( brokerCompleter()) )
             )
         );
     }
@@ -74,22 +77,27 @@ public class DescribeCommand extends ShellCommand {
         }
     }
 
-    private void describeGroup(String group) throws ExecutionException, InterruptedException {
-        DescribeConsumerGroupsResult res = getAdminClient().describeConsumerGroups( Collections.singleton(group) );
-        Map<String, KafkaFuture<ConsumerGroupDescription>> groups = res.describedGroups();
-
-        for( Map.Entry<String,KafkaFuture<ConsumerGroupDescription>> e : groups.entrySet() ) {
-            String key = e.getKey();
-            KafkaFuture<ConsumerGroupDescription> future = e.getValue();
-
-            ConsumerGroupDescription desc = future.get();
-            printf( "Group=%s (state=%s partition assigner=%s)%n", desc.groupId(), desc.state().toString(), desc.partitionAssignor() );
-            printf( "members=[%n%s]%n", desc.members()
-                    .stream()
-                    .map( m -> String.format( "%s@%s ==> %s", m.consumerId(),m.host(), m.groupInstanceId().orElse("No group") ) )
-                    .collect( Collectors.joining("\n")));
-            println("--------------------------------------------");
+    private void describeGroup(String pattern) throws ExecutionException, InterruptedException {
+        Collection<String> groups = expandGlob( pattern, getGroups() );
+        if( groups.isEmpty() ) {
+            printf("No groups match %s%n", pattern);
+            return;
         }
+        DescribeConsumerGroupsResult res = getAdminClient().describeConsumerGroups( groups );
+
+        Map<String,CompletableFuture<String>> blocks = new LinkedHashMap<>();
+        res.describedGroups().forEach( (name, future) -> blocks.put( name, KafkaFutures.toCompletable( future ).thenApply( desc -> {
+            // the broker describes a group it has never heard of as an empty dead one
+            if( desc.state() == ConsumerGroupState.DEAD && desc.members().isEmpty() ) throw new GroupIdNotFoundException( "Group " + name + " does not exist" );
+            return desc;
+        }).thenApply( desc -> String.format(
+                "Group=%s (state=%s partition assigner=%s)%nmembers=[%n%s]%n--------------------------------------------%n",
+                desc.groupId(), desc.state().toString(), desc.partitionAssignor(),
+                desc.members()
+                        .stream()
+                        .map( m -> String.format( "%s@%s ==> %s", m.consumerId(),m.host(), m.groupInstanceId().orElse("No group") ) )
+                        .collect( Collectors.joining("\n")) ) ) ) );
+        printAsCompleted( blocks );
     }
 
     private void describeCluster() throws ExecutionException, InterruptedException {
@@ -110,27 +118,67 @@ public class DescribeCommand extends ShellCommand {
         println("\n* denotes controller");
     }
 
-    private void describeTopic(String topic, String configName) throws ExecutionException, InterruptedException {
-        DescribeTopicsResult res = getAdminClient().describeTopics( Collections.singleton(topic) );
-        Map<String,TopicDescription> descriptions = res.all().get();
-        Map<ConfigResource, Config> configs = getConfigFor(ConfigResource.Type.TOPIC, topic);
-
-        descriptions.values().stream()
-                .sorted( Comparator.comparing(TopicDescription::name) )
-                .forEach( topicDesc -> {
-                    Config config = configs.get( new ConfigResource(ConfigResource.Type.TOPIC, topicDesc.name() ) );
-                    // todo topicDesc.authorizedOptions()
-                    printf("%s (partitions=%s)%n", topicDesc.name(), topicDesc.partitions().size() );
-                    printConfig(config, configName);
-                } );
+    /**
+     * Describes every topic matching the pattern with a single describeTopics and a single describeConfigs
+     * request.  Each topic is printed as soon as both of its results arrive.
+     */
+    private void describeTopic(String pattern, String configName) throws ExecutionException, InterruptedException {
+        Collection<String> topics = expandGlob( pattern, getTopics() );
+        if( topics.isEmpty() ) {
+            printf("No topics match %s%n", pattern);
+            return;
+        }
+        Map<String,KafkaFuture<TopicDescription>> descriptions = getAdminClient().describeTopics( topics ).values();
+        Map<ConfigResource,KafkaFuture<Config>> configs = getAdminClient().describeConfigs( topics.stream()
+                .map( topic -> new ConfigResource(ConfigResource.Type.TOPIC, topic) )
+                .collect(Collectors.toList()) ).values();
+
+        Map<String,CompletableFuture<String>> blocks = new LinkedHashMap<>();
+        for( String topic : new TreeSet<>( topics ) ) {
+            CompletableFuture<TopicDescription> description = KafkaFutures.toCompletable( descriptions.get( topic ) );
+            CompletableFuture<Config> config = KafkaFutures.toCompletable( configs.get( new ConfigResource(ConfigResource.Type.TOPIC, topic) ) );
+            // todo topicDesc.authorizedOptions()
+            blocks.put( topic, description.thenCombine( config, (topicDesc, topicConfig) ->
+                    String.format("%s (partitions=%s)%n", topicDesc.name(), topicDesc.partitions().size() ) + formatConfig( topicConfig, configName ) ) );
+        }
+        printAsCompleted( blocks );
+    }
+
+    /**
+     * Prints each block as it arrives, and once all have arrived fails the command if any couldn't be
+     * described so a script stops on a missing topic or group.
+     */
+    private void printAsCompleted(Map<String,CompletableFuture<String>> blocks) throws ExecutionException, InterruptedException {
+        BlockingQueue<String> ready = new LinkedBlockingQueue<>();
+        AtomicInteger failed = new AtomicInteger();
+        blocks.forEach( (name, future) -> future.whenComplete( (text, error) -> {
+            if( error != null ) failed.incrementAndGet();
+            ready.add( error != null ? String.format("Could not describe %s: %s%n", name, rootCause( error ).getMessage()) : text );
+        }));
+        for( int i = 0; i < blocks.size(); i++ ) {
+            printf( "%s", ready.take() );
+            getTerminal().writer().flush();
+        }
+        if( failed.get() > 0 ) throw new CommandFailedException( String.format("%d of %d could not be described.", failed.get(), blocks.size()) );
+    }
+
+    private Throwable rootCause(Throwable error) {
+        while( (error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null ) {
+            error = error.getCause();
+        }
+        return error;
     }
 
     private void printConfig(Config config, String configName) {
-        println("Config:");
-        println("----------");
+        printf( "%s", formatConfig( config, configName ) );
+    }
+
+    private String formatConfig(Config config, String configName) {
+        StringBuilder out = new StringBuilder( String.format("Config:%n----------%n") );
         config.entries().stream()
                 .filter( (e) -> configName == null || e.name().toLowerCase().startsWith(configName.toLowerCase()) )
                 .sorted(Comparator.comparing(ConfigEntry::name))
-                .forEach( entry -> printf("%s = %s%n", entry.name(), entry.value() ) );
+                .forEach( entry -> out.append( String.format("%s = %s%n", entry.name(), entry.value() ) ) );
+        return out.toString();
     }
 }
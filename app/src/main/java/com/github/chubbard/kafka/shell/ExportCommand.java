@@ -0,0 +1,89 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class ExportCommand extends ShellCommand {
+
+    public ExportCommand(App app) {
+        super(app);
+
+        help = String.format("<topic> to <file>%n%1$15sWrites every record currently in the topic, with headers and binary keys, to a snapshot file.", "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "export";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("export",
+                        node(topicCompleter(),
+                                node("to", node(new Completers.FileNameCompleter()))
+                        )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        Optional<String> file = getOption( words, "to" );
+        if( words.size() < 4 || !file.isPresent() ) {
+            println("Syntax error!  Usage: export <topic> to <file>");
+            return;
+        }
+        String topic = words.get(1);
+
+        Map<String,Object> config = new HashMap<>();
+        config.put( ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false" );
+        config.put( ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "5000" );
+        long start = System.currentTimeMillis();
+        try( Consumer<byte[],byte[]> consumer = getConsumer( config );
+             SnapshotWriter writer = new SnapshotWriter( Paths.get( file.get() ) ) ) {
+            List<TopicPartition> partitions = consumer.partitionsFor( topic ).stream()
+                    .map( info -> new TopicPartition( topic, info.partition() ) )
+                    .collect(Collectors.toList());
+            consumer.assign( partitions );
+            consumer.seekToBeginning( partitions );
+            ConsumeBounds bounds = new ConsumeBounds( consumer.endOffsets( partitions ), Long.MAX_VALUE );
+
+            printf("Exporting %s to %s - Press Q to quit%n", topic, file.get());
+            getTerminal().writer().flush();
+            try( KeyboardWatcher watcher = new KeyboardWatcher( getTerminal(), consumer::wakeup ) ) {
+                bounds.update( consumer );
+                while( !bounds.isDone() && !watcher.isQuit() ) {
+                    ConsumerRecords<byte[],byte[]> records = bounds.apply( consumer.poll( Duration.ofMillis(ConsumeTopicCommand.DEFAULT_TIMEOUT_MS) ) );
+                    for( ConsumerRecord<byte[],byte[]> rec : records ) {
+                        writer.write( rec );
+                    }
+                    bounds.update( consumer );
+                }
+            } catch( WakeupException ex ) {
+                println("Export interrupted.");
+            }
+            printf("Exported %,d records (%,d bytes) in %.1fs%n", writer.getRecordCount(), writer.getBytesWritten(),
+                    (System.currentTimeMillis() - start) / 1000.0);
+        } catch( IOException ioe ) {
+            println("Error writing " + file.get() + ": " + ioe.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.ParsedLine;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+public class ForegroundCommand extends ShellCommand {
+
+    public ForegroundCommand(App app) {
+        super(app);
+
+        help = String.format("[job_id]%n%1$15sShows a background job's output and waits for it to finish.  Press Q to kill it.", "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "fg";
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        Optional<Job> found = words.size() > 1
+                ? app.getJobs().get( Integer.parseInt( words.get(1).replace("%", "") ) )
+                : app.getJobs().latest();
+        if( !found.isPresent() ) {
+            println("No such job.");
+            return;
+        }
+        Job job = found.get();
+        println( job.getCommandLine() );
+        getTerminal().writer().flush();
+        try {
+            job.attach( getTerminal().output() );
+            if( !job.isFinished() ) {
+                KeyboardWatcher watcher = new KeyboardWatcher( getTerminal(), job::kill );
+                try( watcher ) {
+                    while( !job.isFinished() ) {
+                        Thread.sleep( 100 );
+                        job.flush();
+                    }
+                }
+            }
+        } catch( IOException ioe ) {
+            println("Error writing the job's output: " + ioe.getMessage());
+        } finally {
+            job.detach();
+        }
+        if( job.isFinished() ) {
+            app.getJobs().remove( job );
+            if( job.getState() != Job.State.DONE ) println( JobManager.describe( job ) );
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.chubbard.kafka.shell;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that formatters append records to.  Numbers, hex and escaped JSON or CSV text
+ * are encoded directly into the buffer's array, so formatting a record needs no intermediate Strings,
+ * byte arrays or boxed values.  Strings passed to the append methods are expected to be constants such
+ * as field names; their characters are copied one by one and must be ASCII.
+ *
+ * The buffer is reset rather than replaced between batches.  Growing it copies into a larger array but
+ * never touches the old one, so a range handed out from {@link #array()} stays valid until the next
+ * {@link #reset()}.
+ */
+public class FormatBuffer {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] MIN_LONG = String.valueOf( Long.MIN_VALUE ).getBytes();
+
+    private byte[] buf;
+    private int count;
+    private PrintStream printStream;
+
+    public FormatBuffer(int initialCapacity) {
+        buf = new byte[ initialCapacity ];
+    }
+
+    public byte[] array() {
+        return buf;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * Drops everything appended after the given size.
+     */
+    public void truncate(int size) {
+        count = Math.min( count, size );
+    }
+
+    /**
+     * @return a stream writing into this buffer, for formatters that can only write to a stream.
+     */
+    public PrintStream getPrintStream() {
+        if( printStream == null ) {
+            printStream = new PrintStream( new OutputStream() {
+                @Override
+                public void write(int b) {
+                    append( (byte) b );
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    append( b, off, len );
+                }
+            });
+        }
+        return printStream;
+    }
+
+    private void ensure(int extra) {
+        if( count + extra > buf.length ) buf = Arrays.copyOf( buf, Math.max( buf.length * 2, count + extra ) );
+    }
+
+    public FormatBuffer append(byte b) {
+        ensure( 1 );
+        buf[count++] = b;
+        return this;
+    }
+
+    public FormatBuffer append(byte[] b) {
+        return append( b, 0, b.length );
+    }
+
+    public FormatBuffer append(byte[] b, int off, int len) {
+        ensure( len );
+        System.arraycopy( b, off, buf, count, len );
+        count += len;
+        return this;
+    }
+
+    public FormatBuffer appendAscii(String s) {
+        int len = s.length();
+        ensure( len );
+        for( int i = 0; i < len; i++ ) buf[count++] = (byte) s.charAt( i );
+        return this;
+    }
+
+    /**
+     * Appends text, e.g. a header key, as UTF-8 without encoding it into a temporary array.
+     */
+    public FormatBuffer appendUtf8(CharSequence s) {
+        int len = s.length();
+        ensure( len * 3 );
+        for( int i = 0; i < len; i++ ) {
+            char c = s.charAt( i );
+            if( c < 0x80 ) {
+                buf[count++] = (byte) c;
+            } else if( c < 0x800 ) {
+                buf[count++] = (byte) (0xc0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if( Character.isHighSurrogate( c ) && i + 1 < len && Character.isLowSurrogate( s.charAt( i + 1 ) ) ) {
+                int cp = Character.toCodePoint( c, s.charAt( ++i ) );
+                buf[count++] = (byte) (0xf0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[count++] = (byte) (0x80 | (cp & 0x3f));
+            } else {
+                buf[count++] = (byte) (0xe0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[count++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return this;
+    }
+
+    public FormatBuffer appendLong(long value) {
+        if( value == Long.MIN_VALUE ) return append( MIN_LONG );
+        ensure( 20 );
+        if( value < 0 ) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for( long v = value / 10; v > 0; v /= 10 ) digits++;
+        int end = count + digits;
+        for( int i = end - 1; i >= count; i-- ) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+        return this;
+    }
+
+    public FormatBuffer appendHex(byte[] b) {
+        ensure( b.length * 2 );
+        for( byte v : b ) {
+            buf[count++] = HEX[ (v >> 4) & 0xf ];
+            buf[count++] = HEX[ v & 0xf ];
+        }
+        return this;
+    }
+
+    /**
+     * Appends UTF-8 text as a quoted JSON string.  Bytes above 0x7f are copied as is, which keeps valid
+     * UTF-8 valid.
+     */
+    public FormatBuffer appendJsonString(byte[] utf8) {
+        ensure( utf8.length + 2 );
+        buf[count++] = '"';
+        for( int i = 0; i < utf8.length; i++ ) {
+            byte b = utf8[i];
+            if( b >= 0 && (b < 0x20 || b == '"' || b == '\\') ) {
+                // room for the longest escape plus everything after it and the closing quote
+                ensure( 6 + utf8.length - i );
+                buf[count++] = '\\';
+                switch( b ) {
+                    case '"':
+                    case '\\':
+                        buf[count++] = b;
+                        break;
+                    case '\n':
+                        buf[count++] = 'n';
+                        break;
+                    case '\r':
+                        buf[count++] = 'r';
+                        break;
+                    case '\t':
+                        buf[count++] = 't';
+                        break;
+                    default:
+                        buf[count++] = 'u';
+                        buf[count++] = '0';
+                        buf[count++] = '0';
+                        buf[count++] = HEX[ b >> 4 ];
+                        buf[count++] = HEX[ b & 0xf ];
+                        break;
+                }
+            } else {
+                buf[count++] = b;
+            }
+        }
+        buf[count++] = '"';
+        return this;
+    }
+
+    /**
+     * Appends a String, e.g. a header key, as a quoted JSON string.
+     */
+    public FormatBuffer appendJsonString(String s) {
+        for( int i = 0; i < s.length(); i++ ) {
+            char c = s.charAt( i );
+            // rare enough that encoding to a temporary array is fine
+            if( c < 0x20 || c == '"' || c == '\\' ) return appendJsonString( s.getBytes( StandardCharsets.UTF_8 ) );
+        }
+        return append( (byte) '"' ).appendUtf8( s ).append( (byte) '"' );
+    }
+
+    /**
+     * Appends a CSV field, quoting it only when it contains a comma, quote or line break.
+     */
+    public FormatBuffer appendCsvField(byte[] b) {
+        boolean quote = false;
+        for( byte v : b ) {
+            if( v == ',' || v == '"' || v == '\n' || v == '\r' ) {
+                quote = true;
+                break;
+            }
+        }
+        if( !quote ) return append( b );
+        return append( (byte) '"' ).appendCsvQuoted( b ).append( (byte) '"' );
+    }
+
+    /**
+     * Appends text that goes inside a quoted CSV field, doubling any quotes.
+     */
+    public FormatBuffer appendCsvQuoted(byte[] b) {
+        ensure( b.length );
+        for( byte v : b ) {
+            if( v == '"' ) append( (byte) '"' );
+            append( v );
+        }
+        return this;
+    }
+}
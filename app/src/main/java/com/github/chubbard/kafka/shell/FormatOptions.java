@@ -0,0 +1,98 @@
+package com.github.chubbard.kafka.shell;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The options consume passes to a {@link RecordFormatter}.  They use the same names as kafka's
+ * console consumer: print.timestamp, print.partition, print.offset, print.headers, print.key and
+ * print.value choose the fields, only the value by default, and key.separator, line.separator,
+ * headers.separator and null.literal the text between and in place of them.  Separators are encoded
+ * once up front so formatters can append them without allocating.
+ */
+public class FormatOptions {
+
+    private final Map<String,Object> properties;
+    private final boolean printTimestamp;
+    private final boolean printPartition;
+    private final boolean printOffset;
+    private final boolean printHeaders;
+    private final boolean printKey;
+    private final boolean printValue;
+    private final byte[] keySeparator;
+    private final byte[] lineSeparator;
+    private final byte[] headersSeparator;
+    private final byte[] nullLiteral;
+
+    public FormatOptions(Map<String,Object> properties) {
+        this.properties = Collections.unmodifiableMap( properties );
+        printTimestamp = flag( "print.timestamp", false );
+        printPartition = flag( "print.partition", false );
+        printOffset = flag( "print.offset", false );
+        printHeaders = flag( "print.headers", false );
+        printKey = flag( "print.key", false );
+        printValue = flag( "print.value", true );
+        keySeparator = bytes( "key.separator", "\t" );
+        lineSeparator = bytes( "line.separator", "\n" );
+        headersSeparator = bytes( "headers.separator", "," );
+        nullLiteral = bytes( "null.literal", "null" );
+    }
+
+    private boolean flag(String name, boolean defaultValue) {
+        Object value = properties.get( name );
+        return value != null ? Boolean.parseBoolean( value.toString() ) : defaultValue;
+    }
+
+    private byte[] bytes(String name, String defaultValue) {
+        Object value = properties.get( name );
+        return (value != null ? value.toString() : defaultValue).getBytes( StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * @return every option as given, for formatters that take options of their own.
+     */
+    public Map<String,Object> getProperties() {
+        return properties;
+    }
+
+    public boolean isPrintTimestamp() {
+        return printTimestamp;
+    }
+
+    public boolean isPrintPartition() {
+        return printPartition;
+    }
+
+    public boolean isPrintOffset() {
+        return printOffset;
+    }
+
+    public boolean isPrintHeaders() {
+        return printHeaders;
+    }
+
+    public boolean isPrintKey() {
+        return printKey;
+    }
+
+    public boolean isPrintValue() {
+        return printValue;
+    }
+
+    public byte[] getKeySeparator() {
+        return keySeparator;
+    }
+
+    public byte[] getLineSeparator() {
+        return lineSeparator;
+    }
+
+    public byte[] getHeadersSeparator() {
+        return headersSeparator;
+    }
+
+    public byte[] getNullLiteral() {
+        return nullLiteral;
+    }
+}
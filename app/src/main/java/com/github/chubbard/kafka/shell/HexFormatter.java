@@ -0,0 +1,22 @@
+package com.github.chubbard.kafka.shell;
+
+/**
+ * The same layout as {@link RawFormatter} with keys, values and header values written as hex, for
+ * binary payloads that would garble the terminal.
+ */
+public class HexFormatter extends RawFormatter {
+
+    @Override
+    public String getName() {
+        return "hex";
+    }
+
+    @Override
+    protected void appendData(FormatBuffer out, byte[] data) {
+        if( data == null ) {
+            out.append( options.getNullLiteral() );
+        } else {
+            out.appendHex( data );
+        }
+    }
+}
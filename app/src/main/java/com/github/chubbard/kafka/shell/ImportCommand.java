@@ -0,0 +1,91 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class ImportCommand extends ShellCommand {
+
+    public ImportCommand(App app) {
+        super(app);
+
+        help = String.format("<file> into <topic> [preserve-partitions]%n%1$15sProduces the records in a snapshot file written by export into a topic.", "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "import";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("import",
+                        node(new Completers.FileNameCompleter(),
+                                node("into",
+                                        node(topicCompleter(),
+                                                node("preserve-partitions")
+                                        )
+                                )
+                        )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        Optional<String> topic = getOption( words, "into" );
+        if( words.size() < 4 || !topic.isPresent() ) {
+            println("Syntax error!  Usage: import <file> into <topic> [preserve-partitions]");
+            return;
+        }
+        String file = words.get(1);
+        boolean preservePartitions = hasOption( words, "preserve-partitions" );
+
+        Map<String,Object> config = new HashMap<>();
+        config.put( ProducerConfig.LINGER_MS_CONFIG, ProduceCommand.DEFAULT_LINGER_MS );
+        config.put( ProducerConfig.BATCH_SIZE_CONFIG, ProduceCommand.DEFAULT_BATCH_SIZE );
+
+        long start = System.currentTimeMillis();
+        AtomicLong failed = new AtomicLong();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        long count = 0;
+        try( SnapshotReader reader = new SnapshotReader( Paths.get( file ) );
+             Producer<ByteBuffer,ByteBuffer> producer = getProducer( config, new ByteBufferSerializer(), new ByteBufferSerializer() ) ) {
+            int partitions = producer.partitionsFor( topic.get() ).size();
+            printf("Importing %s (%,d bytes) into %s%n", file, reader.getSize(), topic.get());
+            SnapshotReader.SnapshotRecord rec;
+            while( error.get() == null && (rec = reader.next()) != null ) {
+                Integer partition = preservePartitions ? Math.floorMod( rec.partition, partitions ) : null;
+                // the slices point into the mapped file, the serializer copies them before send returns
+                producer.send( new ProducerRecord<>( topic.get(), partition, rec.timestamp, rec.key, rec.value, rec.headers ), (metadata, exception) -> {
+                    if( exception != null ) {
+                        error.compareAndSet( null, exception );
+                        failed.incrementAndGet();
+                    }
+                });
+                count++;
+            }
+            producer.flush();
+        } catch( IOException ioe ) {
+            println("Error reading " + file + ": " + ioe.getMessage());
+        }
+        printf("Imported %,d records in %.1fs%n", count - failed.get(), (System.currentTimeMillis() - start) / 1000.0);
+        if( error.get() != null ) printf("%,d records failed. First error: %s%n", failed.get(), error.get().getMessage());
+    }
+}
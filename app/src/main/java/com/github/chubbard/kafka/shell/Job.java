@@ -0,0 +1,225 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.DumbTerminal;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A command running in the background.  Each job gets its own dumb terminal so commands keep using
+ * {@link ShellCommand#getTerminal()} as they do in the foreground: output lands in a buffer until the
+ * job is brought to the foreground, and the terminal's input never produces anything so a
+ * {@link KeyboardWatcher} only fires when the job is killed.
+ *
+ * Killing a job raises INT on its terminal, which a command's KeyboardWatcher turns into a
+ * {@code consumer.wakeup()}, cancels any admin futures the job registered, and finally interrupts the
+ * job's thread.
+ */
+public class Job {
+
+    public static final int MAX_BUFFERED_BYTES = 8 * 1024 * 1024;
+
+    private static final ThreadLocal<Job> current = new ThreadLocal<>();
+
+    public enum State { RUNNING, DONE, FAILED, KILLED }
+
+    private final int id;
+    private final String commandLine;
+    private final long startedAt = System.currentTimeMillis();
+    private final JobOutput output = new JobOutput();
+    private final PipedOutputStream input = new PipedOutputStream();
+    private final Terminal terminal;
+    private final List<Runnable> onKill = new CopyOnWriteArrayList<>();
+    private volatile State state = State.RUNNING;
+    private volatile long finishedAt;
+    private volatile boolean reported = false;
+    private Future<?> future;
+
+    public Job(int id, String commandLine) throws IOException {
+        this.id = id;
+        this.commandLine = commandLine;
+        this.terminal = new DumbTerminal( "job-" + id, Terminal.TYPE_DUMB, new PipedInputStream( input ),
+                output, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * @return the job the calling thread is running, or null on the shell's own thread.
+     */
+    public static Job current() {
+        return current.get();
+    }
+
+    /**
+     * Runs the command on the calling thread, which finishes the job as failed when it returns false.
+     */
+    void run(BooleanSupplier command) {
+        current.set( this );
+        try {
+            finish( command.getAsBoolean() ? State.DONE : State.FAILED );
+        } catch( RuntimeException ex ) {
+            finish( State.FAILED );
+            throw ex;
+        } finally {
+            current.remove();
+        }
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Registers an action to run when the job is killed, e.g. cancelling an outstanding admin request.
+     */
+    public void onKill(Runnable action) {
+        if( state == State.RUNNING ) onKill.add( action );
+    }
+
+    public void removeOnKill(Runnable action) {
+        onKill.remove( action );
+    }
+
+    public void kill() {
+        if( state != State.RUNNING ) return;
+        state = State.KILLED;
+        terminal.raise( Terminal.Signal.INT );
+        onKill.forEach( Runnable::run );
+        if( future != null ) future.cancel( true );
+    }
+
+    private void finish(State finalState) {
+        terminal.writer().flush();
+        if( state == State.RUNNING ) state = finalState;
+        finishedAt = System.currentTimeMillis();
+        onKill.clear();
+        try {
+            input.close();
+        } catch( IOException e ) {
+            // nothing was ever written to it
+        }
+    }
+
+    /**
+     * Writes everything buffered so far to the given stream and sends the job's output straight there
+     * from now on.
+     */
+    public void attach(OutputStream out) throws IOException {
+        terminal.writer().flush();
+        output.attach( out );
+    }
+
+    public void detach() {
+        terminal.writer().flush();
+        output.detach();
+    }
+
+    public void flush() {
+        terminal.writer().flush();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCommandLine() {
+        return commandLine;
+    }
+
+    public Terminal getTerminal() {
+        return terminal;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return finishedAt > 0;
+    }
+
+    public long getElapsedMs() {
+        return (isFinished() ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    public int getBufferedBytes() {
+        return output.size();
+    }
+
+    boolean markReported() {
+        boolean first = !reported;
+        reported = true;
+        return first;
+    }
+
+    /**
+     * Buffers the job's output while it's in the background keeping at most {@link #MAX_BUFFERED_BYTES}
+     * of the most recent output, and passes it through once attached.
+     */
+    private static class JobOutput extends OutputStream {
+        private byte[] buffer = new byte[4096];
+        private int size = 0;
+        private boolean truncated = false;
+        private OutputStream attached;
+
+        synchronized void attach(OutputStream out) throws IOException {
+            if( out != null && size > 0 ) {
+                if( truncated ) out.write( "... earlier output discarded ...\n".getBytes(StandardCharsets.UTF_8) );
+                out.write( buffer, 0, size );
+                out.flush();
+                buffer = new byte[4096];
+                size = 0;
+                truncated = false;
+            }
+            attached = out;
+        }
+
+        synchronized void detach() {
+            attached = null;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write( new byte[] { (byte) b }, 0, 1 );
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if( attached != null ) {
+                attached.write( b, off, len );
+                return;
+            }
+            if( len >= MAX_BUFFERED_BYTES ) {
+                off += len - MAX_BUFFERED_BYTES;
+                len = MAX_BUFFERED_BYTES;
+                size = 0;
+                truncated = true;
+            } else if( size + len > MAX_BUFFERED_BYTES ) {
+                int drop = size + len - MAX_BUFFERED_BYTES;
+                System.arraycopy( buffer, drop, buffer, 0, size - drop );
+                size -= drop;
+                truncated = true;
+            }
+            if( size + len > buffer.length ) {
+                byte[] grown = new byte[ Math.min( MAX_BUFFERED_BYTES, Math.max( buffer.length * 2, size + len ) ) ];
+                System.arraycopy( buffer, 0, grown, 0, size );
+                buffer = grown;
+            }
+            System.arraycopy( b, off, buffer, size, len );
+            size += len;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if( attached != null ) attached.flush();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.chubbard.kafka.shell;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs commands ending in &amp; on their own threads and keeps track of them until their output has been
+ * seen.  Ids are handed out like a shell does, reusing the lowest free number.
+ */
+public class JobManager {
+
+    private final ConcurrentSkipListMap<Integer,Job> jobs = new ConcurrentSkipListMap<>();
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool( r -> {
+        Thread thread = new Thread( r, "job-" + threads.incrementAndGet() );
+        thread.setDaemon( true );
+        return thread;
+    });
+
+    public synchronized Job submit(String commandLine, BooleanSupplier command) throws IOException {
+        int id = 1;
+        while( jobs.containsKey( id ) ) id++;
+        Job job = new Job( id, commandLine );
+        jobs.put( id, job );
+        job.setFuture( executor.submit( () -> job.run( command ) ) );
+        return job;
+    }
+
+    /**
+     * Runs a job on the job threads without listing it, for work the shell waits on itself such as a
+     * command run against every connected cluster.
+     */
+    public Future<?> runUnlisted(Job job, BooleanSupplier command) {
+        Future<?> future = executor.submit( () -> job.run( command ) );
+        job.setFuture( future );
+        return future;
+    }
+
+    public Optional<Job> get(int id) {
+        return Optional.ofNullable( jobs.get( id ) );
+    }
+
+    /**
+     * @return the most recently started job.
+     */
+    public Optional<Job> latest() {
+        Map.Entry<Integer,Job> last = jobs.lastEntry();
+        return last != null ? Optional.of( last.getValue() ) : Optional.empty();
+    }
+
+    public Collection<Job> all() {
+        return jobs.values();
+    }
+
+    public void remove(Job job) {
+        jobs.remove( job.getId(), job );
+    }
+
+    /**
+     * Prints a line for each job that finished since the last prompt, the way a shell does before showing
+     * its next prompt.
+     */
+    public void reportFinished(PrintWriter writer) {
+        for( Job job : jobs.values() ) {
+            if( job.isFinished() && job.markReported() ) {
+                writer.println( describe( job ) );
+            }
+        }
+        writer.flush();
+    }
+
+    public static String describe(Job job) {
+        String buffered = job.getBufferedBytes() > 0 ? String.format(" (%,d bytes of output)", job.getBufferedBytes()) : "";
+        return String.format("[%d] %-8s %8.1fs  %s%s", job.getId(), job.getState(), job.getElapsedMs() / 1000.0,
+                job.getCommandLine(), buffered);
+    }
+
+    public void shutdown() {
+        jobs.values().forEach( Job::kill );
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.ParsedLine;
+
+import java.util.concurrent.ExecutionException;
+
+public class JobsCommand extends ShellCommand {
+
+    public JobsCommand(App app) {
+        super(app);
+
+        help = "Lists the background jobs.  End any command with & to run it in the background.";
+    }
+
+    @Override
+    public String getCommand() {
+        return "jobs";
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        if( app.getJobs().all().isEmpty() ) {
+            println("No jobs.");
+            return;
+        }
+        for( Job job : app.getJobs().all() ) {
+            println( JobManager.describe( job ) );
+            job.markReported();
+        }
+    }
+}
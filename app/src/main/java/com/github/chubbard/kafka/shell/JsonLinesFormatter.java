@@ -0,0 +1,93 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+/**
+ * Writes each record as one JSON object per line holding the fields chosen with the print.* options,
+ * e.g. {"partition":0,"offset":42,"key":"k1","value":{"id":7}}.  A key or value that is already a JSON
+ * object or array on a single line is embedded as is, anything else becomes a JSON string.  Null keys
+ * and values are written as null.
+ */
+public class JsonLinesFormatter implements RecordFormatter {
+
+    private FormatOptions options;
+
+    @Override
+    public String getName() {
+        return "json-lines";
+    }
+
+    @Override
+    public void configure(FormatOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public void writeTo(ConsumerRecord<byte[],byte[]> record, FormatBuffer out) {
+        out.append( (byte) '{' );
+        boolean first = true;
+        if( options.isPrintTimestamp() ) {
+            field( out, "timestamp", first ).appendLong( record.timestamp() );
+            field( out, "timestampType", false ).append( (byte) '"' ).appendAscii( record.timestampType().name ).append( (byte) '"' );
+            first = false;
+        }
+        if( options.isPrintPartition() ) {
+            field( out, "partition", first ).appendLong( record.partition() );
+            first = false;
+        }
+        if( options.isPrintOffset() ) {
+            field( out, "offset", first ).appendLong( record.offset() );
+            first = false;
+        }
+        if( options.isPrintHeaders() ) {
+            field( out, "headers", first ).append( (byte) '{' );
+            first = false;
+            boolean firstHeader = true;
+            for( Header header : record.headers() ) {
+                if( !firstHeader ) out.append( (byte) ',' );
+                firstHeader = false;
+                out.appendJsonString( header.key() ).append( (byte) ':' );
+                appendData( out, header.value() );
+            }
+            out.append( (byte) '}' );
+        }
+        if( options.isPrintKey() ) {
+            appendData( field( out, "key", first ), record.key() );
+            first = false;
+        }
+        if( options.isPrintValue() ) {
+            appendData( field( out, "value", first ), record.value() );
+        }
+        out.append( (byte) '}' ).append( options.getLineSeparator() );
+    }
+
+    private FormatBuffer field(FormatBuffer out, String name, boolean first) {
+        if( !first ) out.append( (byte) ',' );
+        return out.append( (byte) '"' ).appendAscii( name ).appendAscii( "\":" );
+    }
+
+    private void appendData(FormatBuffer out, byte[] data) {
+        if( data == null ) {
+            out.appendAscii( "null" );
+        } else if( isSingleLineJson( data ) ) {
+            out.append( data );
+        } else {
+            out.appendJsonString( data );
+        }
+    }
+
+    /**
+     * A cheap check rather than a parse: the data starts with { or [ and has no line breaks that would
+     * split the record over several lines.
+     */
+    static boolean isSingleLineJson(byte[] data) {
+        int i = 0;
+        while( i < data.length && (data[i] == ' ' || data[i] == '\t') ) i++;
+        if( i == data.length || (data[i] != '{' && data[i] != '[') ) return false;
+        for( ; i < data.length; i++ ) {
+            if( data[i] == '\n' || data[i] == '\r' ) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.chubbard.kafka.shell;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A minimal JSON path that locates a value directly in the raw bytes of a JSON document without parsing
+ * it into objects.  Only object members and array indexes are supported, e.g. {@code $.order.lines[0].sku}.
+ * The scanner skips over everything that isn't on the path so looking up a value allocates nothing.
+ *
+ * {@link #find(byte[], int, int)} returns the location of the value packed into a long (start in the high
+ * 32 bits and the exclusive end in the low 32 bits) or -1 if the path isn't present or the document is
+ * malformed.  String values are returned without their surrounding quotes.  Escapes are not decoded.
+ */
+public class JsonPath {
+
+    public static final long NOT_FOUND = -1;
+
+    private final byte[][] keys;
+    private final int[] indexes;
+
+    private JsonPath(byte[][] keys, int[] indexes) {
+        this.keys = keys;
+        this.indexes = indexes;
+    }
+
+    public static JsonPath compile(String path) {
+        if( !path.startsWith("$") ) throw new IllegalArgumentException("JSON path must start with $ but was " + path);
+        List<byte[]> keys = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int i = 1;
+        while( i < path.length() ) {
+            char c = path.charAt(i);
+            if( c == '.' ) {
+                int end = i + 1;
+                while( end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[' ) end++;
+                if( end == i + 1 ) throw new IllegalArgumentException("Empty member name in JSON path " + path);
+                keys.add( path.substring( i + 1, end ).getBytes(StandardCharsets.UTF_8) );
+                indexes.add( -1 );
+                i = end;
+            } else if( c == '[' ) {
+                int end = path.indexOf( ']', i );
+                if( end < 0 ) throw new IllegalArgumentException("Unclosed [ in JSON path " + path);
+                keys.add( null );
+                indexes.add( Integer.parseInt( path.substring( i + 1, end ).trim() ) );
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in JSON path " + path);
+            }
+        }
+        return new JsonPath( keys.toArray(new byte[0][]), indexes.stream().mapToInt(Integer::intValue).toArray() );
+    }
+
+    public static int start(long location) {
+        return (int) (location >>> 32);
+    }
+
+    public static int end(long location) {
+        return (int) location;
+    }
+
+    public long find(byte[] json, int from, int to) {
+        int pos = skipWhitespace( json, from, to );
+        for( int s = 0; s < keys.length && pos >= 0; s++ ) {
+            pos = keys[s] != null ? member( json, pos, to, keys[s] ) : element( json, pos, to, indexes[s] );
+        }
+        if( pos < 0 || pos >= to ) return NOT_FOUND;
+        int end = skipValue( json, pos, to );
+        if( end < 0 ) return NOT_FOUND;
+        if( json[pos] == '"' ) return ((long) (pos + 1) << 32) | (end - 1);
+        return ((long) pos << 32) | end;
+    }
+
+    private int member(byte[] json, int pos, int to, byte[] key) {
+        if( pos >= to || json[pos] != '{' ) return -1;
+        pos = skipWhitespace( json, pos + 1, to );
+        while( pos >= 0 && pos < to && json[pos] == '"' ) {
+            int keyEnd = skipString( json, pos, to );
+            if( keyEnd < 0 ) return -1;
+            boolean matches = equals( json, pos + 1, keyEnd - 1, key );
+            pos = skipWhitespace( json, keyEnd, to );
+            if( pos >= to || json[pos] != ':' ) return -1;
+            pos = skipWhitespace( json, pos + 1, to );
+            if( matches ) return pos;
+            pos = next( json, skipValue( json, pos, to ), to );
+        }
+        return -1;
+    }
+
+    private int element(byte[] json, int pos, int to, int index) {
+        if( pos >= to || json[pos] != '[' ) return -1;
+        pos = skipWhitespace( json, pos + 1, to );
+        for( int i = 0; pos >= 0 && pos < to && json[pos] != ']'; i++ ) {
+            if( i == index ) return pos;
+            pos = next( json, skipValue( json, pos, to ), to );
+        }
+        return -1;
+    }
+
+    /**
+     * Moves past the separator after a value and returns the start of the next one, or -1 when the
+     * enclosing object or array ends.
+     */
+    private int next(byte[] json, int pos, int to) {
+        if( pos < 0 ) return -1;
+        pos = skipWhitespace( json, pos, to );
+        if( pos >= to || json[pos] != ',' ) return -1;
+        return skipWhitespace( json, pos + 1, to );
+    }
+
+    private static boolean equals(byte[] json, int from, int to, byte[] key) {
+        if( to - from != key.length ) return false;
+        for( int i = 0; i < key.length; i++ ) {
+            if( json[from + i] != key[i] ) return false;
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(byte[] json, int pos, int to) {
+        while( pos < to && (json[pos] == ' ' || json[pos] == '\t' || json[pos] == '\n' || json[pos] == '\r') ) pos++;
+        return pos;
+    }
+
+    private static int skipString(byte[] json, int pos, int to) {
+        for( int i = pos + 1; i < to; i++ ) {
+            if( json[i] == '\\' ) {
+                i++;
+            } else if( json[i] == '"' ) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipValue(byte[] json, int pos, int to) {
+        if( pos < 0 || pos >= to ) return -1;
+        byte b = json[pos];
+        if( b == '"' ) return skipString( json, pos, to );
+        if( b == '{' || b == '[' ) {
+            int depth = 0;
+            for( int i = pos; i < to; i++ ) {
+                byte c = json[i];
+                if( c == '"' ) {
+                    i = skipString( json, i, to ) - 1;
+                    if( i < 0 ) return -1;
+                } else if( c == '{' || c == '[' ) {
+                    depth++;
+                } else if( c == '}' || c == ']' ) {
+                    if( --depth == 0 ) return i + 1;
+                }
+            }
+            return -1;
+        }
+        int i = pos;
+        while( i < to && json[i] != ',' && json[i] != '}' && json[i] != ']' && json[i] != ' ' && json[i] != '\t' && json[i] != '\n' && json[i] != '\r' ) i++;
+        return i;
+    }
+}
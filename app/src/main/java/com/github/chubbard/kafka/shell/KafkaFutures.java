@@ -0,0 +1,60 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.common.KafkaFuture;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bridges the admin client's {@link KafkaFuture}s to {@link CompletableFuture} so results from several
+ * admin calls can be composed without blocking on each one in turn.
+ */
+public final class KafkaFutures {
+
+    private KafkaFutures() {
+    }
+
+    /**
+     * When called from a background job the admin future is cancelled if the job is killed.
+     */
+    public static <T> CompletableFuture<T> toCompletable(KafkaFuture<T> future) {
+        Job job = Job.current();
+        if( job != null ) {
+            Runnable cancel = () -> future.cancel( true );
+            job.onKill( cancel );
+            future.whenComplete( (value, error) -> job.removeOnKill( cancel ) );
+        }
+        CompletableFuture<T> completable = new CompletableFuture<>();
+        future.whenComplete( (value, error) -> {
+            if( error != null ) {
+                completable.completeExceptionally( error );
+            } else {
+                completable.complete( value );
+            }
+        });
+        return completable;
+    }
+
+    /**
+     * Completes once every future has, whether it succeeded or failed, so one failure doesn't hide the
+     * others' results.  Check each future for its own outcome.
+     */
+    public static CompletableFuture<Void> allSettled(Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf( futures.stream()
+                .map( f -> f.handle( (value, error) -> null ) )
+                .toArray(CompletableFuture<?>[]::new) );
+    }
+
+    /**
+     * @return why the future failed with any CompletionException unwrapped, or null if it didn't fail.
+     */
+    public static Throwable failure(CompletableFuture<?> future) {
+        Throwable error = future.handle( (value, e) -> e ).join();
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public static CompletableFuture<Void> allOf(Collection<? extends CompletableFuture<?>> futures) {
+        return CompletableFuture.allOf( futures.toArray(new CompletableFuture<?>[0]) );
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.chubbard.kafka.shell;
+
+import kafka.tools.DefaultMessageFormatter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.MessageFormatter;
+
+/**
+ * Runs records through kafka's own DefaultMessageFormatter, the formatter consume used before the
+ * built-in ones.  Slower, since it allocates per record, but it's the only one that honours
+ * key.deserializer, value.deserializer and headers.deserializer.
+ */
+public class KafkaMessageFormatter implements RecordFormatter {
+
+    private final MessageFormatter formatter = new DefaultMessageFormatter();
+
+    @Override
+    public String getName() {
+        return "kafka";
+    }
+
+    @Override
+    public void configure(FormatOptions options) {
+        formatter.configure( options.getProperties() );
+    }
+
+    @Override
+    public void writeTo(ConsumerRecord<byte[],byte[]> record, FormatBuffer out) {
+        formatter.writeTo( record, out.getPrintStream() );
+        out.getPrintStream().flush();
+    }
+
+    @Override
+    public void close() {
+        formatter.close();
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jline.terminal.Attributes;
+import org.jline.terminal.Terminal;
+import org.jline.utils.NonBlockingReader;
+
+import java.io.IOException;
+
+/**
+ * Watches the terminal for a quit key on its own thread so a long running command never has to stop
+ * and read the keyboard itself.  When q or Ctrl-C is pressed the watcher marks itself as quit and runs
+ * the interrupt action, typically {@code consumer::wakeup}, so a blocked poll returns immediately.
+ */
+public class KeyboardWatcher implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger( KeyboardWatcher.class );
+
+    private static final int CTRL_C = 3;
+
+    private final Terminal terminal;
+    private final Runnable interrupt;
+    private final Thread thread;
+    private final Attributes previousAttributes;
+    private final Terminal.SignalHandler previousHandler;
+    private volatile boolean quit = false;
+    private volatile boolean closed = false;
+
+    public KeyboardWatcher(Terminal terminal, Runnable interrupt) {
+        this.terminal = terminal;
+        this.interrupt = interrupt;
+        this.previousAttributes = terminal.enterRawMode();
+        this.previousHandler = terminal.handle( Terminal.Signal.INT, signal -> quit() );
+        this.thread = new Thread( this::watch, "keyboard-watcher" );
+        this.thread.setDaemon( true );
+        this.thread.start();
+    }
+
+    public boolean isQuit() {
+        return quit;
+    }
+
+    public void quit() {
+        quit = true;
+        interrupt.run();
+    }
+
+    private void watch() {
+        NonBlockingReader reader = terminal.reader();
+        try {
+            while( !closed && !quit ) {
+                int c = reader.read( 100 );
+                if( c == 'q' || c == 'Q' || c == CTRL_C ) {
+                    quit();
+                } else if( c == NonBlockingReader.EOF ) {
+                    break;
+                }
+            }
+        } catch( IOException e ) {
+            logger.warn("Could not read from the terminal", e);
+        }
+    }
+
+    /**
+     * Stops watching and puts the terminal back the way it was.  Interrupted while waiting for the
+     * watcher thread the terminal is still restored and the interrupt is kept for the caller.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            thread.join();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        terminal.handle( Terminal.Signal.INT, previousHandler );
+        terminal.setAttributes( previousAttributes );
+    }
+}
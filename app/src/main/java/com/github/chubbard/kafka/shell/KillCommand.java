@@ -0,0 +1,38 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.ParsedLine;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+public class KillCommand extends ShellCommand {
+
+    public KillCommand(App app) {
+        super(app);
+
+        help = String.format("<job_id>%n%1$15sStops a background job and discards its output.", "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "kill";
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 2 ) {
+            println("Missing job id.");
+            return;
+        }
+        Optional<Job> job = app.getJobs().get( Integer.parseInt( words.get(1).replace("%", "") ) );
+        if( !job.isPresent() ) {
+            println("No such job.");
+            return;
+        }
+        job.get().kill();
+        app.getJobs().remove( job.get() );
+        printf("[%d] Killed %s%n", job.get().getId(), job.get().getCommandLine());
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.chubbard.kafka.shell;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, lock free histogram of latencies in the spirit of HdrHistogram.  Values are bucketed by
+ * their highest bit and then into 32 linear sub-buckets, so any recorded value is reported within about
+ * 3% of its true value no matter how large it is.  Recording is a couple of bit operations and one atomic
+ * increment which makes it cheap enough for producer callbacks and per-poll timings.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray( (64 - SUB_BUCKET_BITS) * SUB_BUCKETS );
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if( value < 0 ) value = 0;
+        counts.incrementAndGet( indexOf( value ) );
+        count.incrementAndGet();
+        sum.addAndGet( value );
+        long current;
+        while( value > (current = max.get()) && !max.compareAndSet( current, value ) ) {
+            // retry until the max is at least this value
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile (0-100).  The result is the upper edge of the bucket the
+     * percentile falls in, capped at the largest value recorded.
+     */
+    public long getPercentile(double percentile) {
+        long n = count.get();
+        if( n == 0 ) return 0;
+        long target = Math.max( 1, (long) Math.ceil( n * percentile / 100.0 ) );
+        long seen = 0;
+        for( int i = 0; i < counts.length(); i++ ) {
+            seen += counts.get(i);
+            if( seen >= target ) return Math.min( upperEdge( i ), max.get() );
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for( int i = 0; i < counts.length(); i++ ) counts.set( i, 0 );
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if( value < SUB_BUCKETS ) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    static long upperEdge(int index) {
+        if( index < SUB_BUCKETS ) return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.Candidate;
+import org.jline.reader.Completer;
+import org.jline.reader.LineReader;
+import org.jline.reader.ParsedLine;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Completes a command's verb without building the command, and only builds the command and its completer
+ * the first time something after the verb is completed.  Keeps command construction, and things like
+ * reflecting over the config keys, off the startup path.
+ */
+public class LazyCommandCompleter implements Completer {
+
+    private final String verb;
+    private final Supplier<ShellCommand> command;
+    private volatile Completer completer;
+
+    public LazyCommandCompleter(String verb, Supplier<ShellCommand> command) {
+        this.verb = verb;
+        this.command = command;
+    }
+
+    @Override
+    public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
+        if( line.wordIndex() == 0 ) {
+            candidates.add( new Candidate( verb ) );
+            return;
+        }
+        if( !verb.equalsIgnoreCase( line.words().get(0) ) ) return;
+        if( completer == null ) completer = command.get().getCompleter();
+        completer.complete( reader, line, candidates );
+    }
+}
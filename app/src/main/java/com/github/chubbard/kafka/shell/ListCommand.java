@@ -6,18 +6,18 @@ import org.jline.builtins.Completers;
 import org.jline.reader.Completer;
 import org.jline.reader.ParsedLine;
 
-import java.util.Collection;
-import java.util.Comparator;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
-public class ListCommand extends ShellCommand {
+public class ListCommand extends ShellCommand implements ReadOnlyCommand {
 
     public ListCommand(App app) {
         super(app);
 
-        help = "<topics|groups|offsets>";
+        help = "<topics|groups|offsets [group_name]> [--all-clusters]";
     }
 
     @Override
@@ -29,9 +29,9 @@ public class ListCommand extends ShellCommand {
     public Completer getCompleter() {
         return new Completers.TreeCompleter(
                 node("list",
-                        node("topics"),
-                        node("groups"),
-                        node("offsets")
+                        node("topics", node(App.ALL_CLUSTERS)),
+                        node("groups", node(App.ALL_CLUSTERS)),
+                        node("offsets", node(groupCompleter(), node(App.ALL_CLUSTERS)))
                 )
         );
     }
@@ -46,7 +46,7 @@ public class ListCommand extends ShellCommand {
                 listTopics();
                 break;
             case "offsets":
-                listOffsets();
+                listOffsets( line.words().size() > 2 ? line.words().get(2) : null );
                 break;
         }
     }
@@ -73,8 +73,27 @@ public class ListCommand extends ShellCommand {
                 .forEach((listing) -> println( listing.name() ) );
     }
 
-    private void listOffsets() {
-        println("TODO listOffsets");
+    private void listOffsets(String group) throws ExecutionException, InterruptedException {
+        Collection<String> groupIds = group != null ? Collections.singleton(group) : getConsumerGroupListings().stream()
+                .map(ConsumerGroupListing::groupId)
+                .collect(Collectors.toList());
+
+        ConsumerLag.Report report = ConsumerLag.fetchReport( getAdminClient(), groupIds ).get();
+        Map<String,List<ConsumerLag>> byGroup = report.getLags().stream()
+                .collect(Collectors.groupingBy(ConsumerLag::getGroupId, TreeMap::new, Collectors.toList()));
+
+        for( Map.Entry<String,List<ConsumerLag>> entry : byGroup.entrySet() ) {
+            printf("Group %s (total lag=%,d)%n", entry.getKey(), entry.getValue().stream().mapToLong(ConsumerLag::getLag).sum());
+            printf("%-40s %9s %15s %15s %15s %12s%n", "TOPIC", "PARTITION", "LOG-START", "LOG-END", "COMMITTED", "LAG");
+            for( ConsumerLag lag : entry.getValue() ) {
+                printf("%-40s %9d %15d %15d %15d %,12d%n",
+                        lag.getPartition().topic(), lag.getPartition().partition(),
+                        lag.getLogStartOffset(), lag.getLogEndOffset(), lag.getCommittedOffset(), lag.getLag());
+            }
+            println("--------------------------------------------");
+        }
+        if( byGroup.isEmpty() && report.getFailures().isEmpty() ) println("No committed offsets found.");
+        report.getFailures().forEach( (what, error) -> printf("Failed: %s %s%n", what, error.getMessage()) );
     }
 
 }
@@ -0,0 +1,137 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupListing;
+import org.apache.kafka.common.Node;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Caches topic, group and broker names for tab completion.  Lookups never wait on the cluster once a kind
+ * has been loaded: a stale entry is served as is while a refresh runs in the background on the admin
+ * client's own thread.  Commands that create or delete things invalidate the affected kind so the next
+ * completion sees the change.  Only the very first lookup of a kind waits, and only for a bounded time.
+ */
+public class MetadataCache {
+
+    private static final Logger logger = LogManager.getLogger( MetadataCache.class );
+
+    public static final long DEFAULT_TTL_MS = TimeUnit.SECONDS.toMillis(30);
+    public static final long FIRST_LOAD_WAIT_MS = TimeUnit.SECONDS.toMillis(5);
+
+    public enum Kind { TOPICS, GROUPS, BROKERS }
+
+    private final Supplier<AdminClient> admin;
+    private volatile long ttlMs;
+    private final Map<Kind,Entry> entries = new EnumMap<>( Kind.class );
+
+    public MetadataCache(Supplier<AdminClient> admin, long ttlMs) {
+        this.admin = admin;
+        this.ttlMs = ttlMs;
+        for( Kind kind : Kind.values() ) entries.put( kind, new Entry() );
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    public PrefixIndex get(Kind kind) {
+        Entry entry = entries.get( kind );
+        PrefixIndex names = entry.names;
+        if( names == null ) {
+            try {
+                return refresh( kind ).get( FIRST_LOAD_WAIT_MS, TimeUnit.MILLISECONDS );
+            } catch( Exception e ) {
+                logger.warn("Could not load {} for completion", kind, e);
+                return PrefixIndex.EMPTY;
+            }
+        }
+        if( System.currentTimeMillis() - entry.loadedAt > ttlMs ) refresh( kind );
+        return names;
+    }
+
+    /**
+     * Starts loading the given kind unless a load is already running, and returns the future for
+     * whichever load is in flight.
+     */
+    public CompletableFuture<PrefixIndex> refresh(Kind kind) {
+        Entry entry = entries.get( kind );
+        CompletableFuture<PrefixIndex> pending = new CompletableFuture<>();
+        if( !entry.loading.compareAndSet( null, pending ) ) {
+            CompletableFuture<PrefixIndex> running = entry.loading.get();
+            if( running != null ) return running;
+            return refresh( kind );
+        }
+        try {
+            load( kind ).whenComplete( (names, error) -> {
+                if( error != null ) {
+                    logger.error("Could not retrieve {} due to ", kind, error);
+                } else {
+                    entry.names = new PrefixIndex( names );
+                    entry.loadedAt = System.currentTimeMillis();
+                }
+                entry.loading.set( null );
+                if( error != null ) {
+                    pending.completeExceptionally( error );
+                } else {
+                    pending.complete( entry.names );
+                }
+            });
+        } catch( RuntimeException e ) {
+            entry.loading.set( null );
+            pending.completeExceptionally( e );
+        }
+        return pending;
+    }
+
+    public CompletableFuture<Void> refreshAll() {
+        return CompletableFuture.allOf( Arrays.stream( Kind.values() ).map( this::refresh ).toArray(CompletableFuture[]::new) );
+    }
+
+    /**
+     * Marks the kind as stale and reloads it in the background.  Lookups keep serving the old names until
+     * the reload finishes.
+     */
+    public void invalidate(Kind kind) {
+        entries.get( kind ).loadedAt = 0;
+        refresh( kind );
+    }
+
+    public void clear() {
+        for( Entry entry : entries.values() ) {
+            entry.names = null;
+            entry.loadedAt = 0;
+        }
+    }
+
+    private CompletableFuture<Collection<String>> load(Kind kind) {
+        switch( kind ) {
+            case TOPICS:
+                return KafkaFutures.toCompletable( admin.get().listTopics().names() )
+                        .thenApply( names -> names );
+            case GROUPS:
+                return KafkaFutures.toCompletable( admin.get().listConsumerGroups().all() )
+                        .thenApply( groups -> groups.stream().map(ConsumerGroupListing::groupId).collect(Collectors.toList()) );
+            default:
+                return KafkaFutures.toCompletable( admin.get().describeCluster().nodes() )
+                        .thenApply( nodes -> nodes.stream().map(Node::idString).collect(Collectors.toList()) );
+        }
+    }
+
+    private static class Entry {
+        volatile PrefixIndex names;
+        volatile long loadedAt;
+        final AtomicReference<CompletableFuture<PrefixIndex>> loading = new AtomicReference<>();
+    }
+}
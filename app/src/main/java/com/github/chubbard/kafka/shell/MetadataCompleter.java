@@ -0,0 +1,35 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.Candidate;
+import org.jline.reader.Completer;
+import org.jline.reader.LineReader;
+import org.jline.reader.ParsedLine;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Completes topic, group or broker names from the {@link MetadataCache}.  Only names starting with the
+ * word being completed are turned into candidates so large clusters don't produce thousands of
+ * candidates on every key press.  The cache is looked up on every completion so names come from whichever
+ * cluster is currently in use.
+ */
+public class MetadataCompleter implements Completer {
+
+    private final Supplier<MetadataCache> cache;
+    private final MetadataCache.Kind kind;
+
+    public MetadataCompleter(Supplier<MetadataCache> cache, MetadataCache.Kind kind) {
+        this.cache = cache;
+        this.kind = kind;
+    }
+
+    @Override
+    public void complete(LineReader reader, ParsedLine line, List<Candidate> candidates) {
+        String word = line.word();
+        String prefix = word.substring( 0, Math.min( line.wordCursor(), word.length() ) );
+        for( String name : cache.get().get( kind ).withPrefix( prefix ) ) {
+            candidates.add( new Candidate( name, name, null, null, null, null, true ) );
+        }
+    }
+}
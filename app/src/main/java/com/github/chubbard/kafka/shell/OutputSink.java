@@ -0,0 +1,20 @@
+package com.github.chubbard.kafka.shell;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The last stage of the consume pipeline.  Formatted bytes are handed to the sink as they are produced
+ * and the sink decides when they actually reach the destination.  {@link #endBatch()} is called once
+ * after each poll's records have been written so implementations can flush on batch boundaries.
+ */
+public interface OutputSink extends Closeable {
+
+    void write(byte[] data, int offset, int length) throws IOException;
+
+    void endBatch() throws IOException;
+
+    void flush() throws IOException;
+
+    long getBytesWritten();
+}
@@ -0,0 +1,62 @@
+package com.github.chubbard.kafka.shell;
+
+import java.util.*;
+
+/**
+ * An immutable sorted array of names that answers prefix lookups with two binary searches.  The list
+ * returned by {@link #withPrefix(String)} is a view over the array so a lookup doesn't copy anything.
+ */
+public class PrefixIndex {
+
+    public static final PrefixIndex EMPTY = new PrefixIndex( Collections.emptyList() );
+
+    private final String[] names;
+    private final List<String> view;
+
+    public PrefixIndex(Collection<String> names) {
+        this.names = names.stream().distinct().sorted().toArray(String[]::new);
+        this.view = Collections.unmodifiableList( Arrays.asList( this.names ) );
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public List<String> all() {
+        return view;
+    }
+
+    public boolean contains(String name) {
+        return Arrays.binarySearch( names, name ) >= 0;
+    }
+
+    public List<String> withPrefix(String prefix) {
+        if( prefix == null || prefix.isEmpty() ) return all();
+        int from = lowerBound( prefix );
+        String upper = upperBoundKey( prefix );
+        int to = upper == null ? names.length : lowerBound( upper );
+        return view.subList( from, to );
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch( names, key );
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * The smallest string greater than every string starting with prefix, found by incrementing the last
+     * character that isn't already at its maximum.
+     */
+    private static String upperBoundKey(String prefix) {
+        StringBuilder key = new StringBuilder( prefix );
+        for( int i = key.length() - 1; i >= 0; i-- ) {
+            char c = key.charAt(i);
+            if( c != Character.MAX_VALUE ) {
+                key.setCharAt( i, (char) (c + 1) );
+                key.setLength( i + 1 );
+                return key.toString();
+            }
+        }
+        return null;
+    }
+}
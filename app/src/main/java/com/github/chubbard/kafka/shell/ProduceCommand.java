@@ -0,0 +1,175 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.jline.builtins.Completers;
+import org.jline.reader.*;
+import org.jline.reader.impl.completer.NullCompleter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class ProduceCommand extends ShellCommand {
+
+    public static final String DEFAULT_LINGER_MS = "10";
+    public static final String DEFAULT_BATCH_SIZE = "131072";
+
+    public ProduceCommand(App app) {
+        super(app);
+
+        help = String.format(
+                String.join( "%n%1$20s",
+                        "<topic>",
+                        "[file <path>]",
+                        "[key.separator <separator>]",
+                        "[linger.ms <numeric>]",
+                        "[batch.size <numeric>]",
+                        "[compression.type <none|gzip|snappy|lz4|zstd>]",
+                        "[acks <0|1|all>]",
+                        "[max.in.flight <numeric>]",
+                        "Without a file each line typed is sent until an empty line or Ctrl-D."
+                ), ""
+        );
+    }
+
+    @Override
+    public String getCommand() {
+        return "produce";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("produce",
+                        node(topicCompleter(),
+                                node("file", node(new Completers.FileNameCompleter())),
+                                node("key.separator"),
+                                node("linger.ms", "batch.size"),
+                                node("compression.type", node("none", "gzip", "snappy", "lz4", "zstd")),
+                                node("acks", node("0", "1", "all")),
+                                node("max.in.flight")
+                        )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 2 ) {
+            println("Missing topic to produce to.");
+            return;
+        }
+        String topic = words.get(1);
+        String file = getOption( words, "file" ).orElse(null);
+        String separator = getOption( words, "key.separator" ).orElse(null);
+
+        Map<String,Object> config = new HashMap<>();
+        config.put( ProducerConfig.LINGER_MS_CONFIG, getOption( words, "linger.ms" ).orElse(DEFAULT_LINGER_MS) );
+        config.put( ProducerConfig.BATCH_SIZE_CONFIG, getOption( words, "batch.size" ).orElse(DEFAULT_BATCH_SIZE) );
+        getOption( words, "compression.type" ).ifPresent( c -> config.put( ProducerConfig.COMPRESSION_TYPE_CONFIG, c ) );
+        getOption( words, "acks" ).ifPresent( a -> config.put( ProducerConfig.ACKS_CONFIG, a ) );
+        getOption( words, "max.in.flight" ).ifPresent( m -> config.put( ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, m ) );
+
+        SendStats stats = new SendStats();
+        try( Producer<byte[],byte[]> producer = getProducer( config ) ) {
+            if( file != null ) {
+                produceFile( producer, topic, file, separator, stats );
+            } else {
+                produceInteractive( producer, topic, separator, stats );
+            }
+            producer.flush();
+        } catch( IOException ioe ) {
+            println("Error reading " + file + ": " + ioe.getMessage());
+        }
+        stats.report();
+    }
+
+    private void produceFile(Producer<byte[],byte[]> producer, String topic, String file, String separator, SendStats stats) throws IOException, InterruptedException {
+        printf("Producing %s to %s - Press Q to quit%n", file, topic);
+        getTerminal().writer().flush();
+        try( BufferedReader reader = Files.newBufferedReader( Paths.get(file), StandardCharsets.UTF_8 );
+             KeyboardWatcher watcher = new KeyboardWatcher( getTerminal(), () -> {} ) ) {
+            String value;
+            while( !watcher.isQuit() && stats.error.get() == null && (value = reader.readLine()) != null ) {
+                send( producer, topic, value, separator, stats );
+            }
+        }
+    }
+
+    private void produceInteractive(Producer<byte[],byte[]> producer, String topic, String separator, SendStats stats) {
+        printf("Producing to %s - Enter a blank line or Ctrl-D to stop%n", topic);
+        LineReader reader = LineReaderBuilder.builder()
+                .terminal( getTerminal() )
+                .completer( NullCompleter.INSTANCE )
+                .build();
+        try {
+            String value;
+            while( !(value = reader.readLine( topic + "> " )).isEmpty() ) {
+                send( producer, topic, value, separator, stats );
+            }
+        } catch( EndOfFileException | UserInterruptException ex ) {
+            // done producing
+        }
+    }
+
+    private void send(Producer<byte[],byte[]> producer, String topic, String line, String separator, SendStats stats) {
+        byte[] key = null;
+        String value = line;
+        if( separator != null ) {
+            int split = line.indexOf( separator );
+            if( split >= 0 ) {
+                key = line.substring( 0, split ).getBytes(StandardCharsets.UTF_8);
+                value = line.substring( split + separator.length() );
+            }
+        }
+        byte[] payload = value.getBytes(StandardCharsets.UTF_8);
+        long sentAt = System.nanoTime();
+        int size = payload.length + (key != null ? key.length : 0);
+        producer.send( new ProducerRecord<>( topic, key, payload ), (metadata, exception) -> {
+            if( exception != null ) {
+                stats.error.compareAndSet( null, exception );
+                stats.failed.incrementAndGet();
+            } else {
+                stats.acked( size );
+                stats.latency.record( TimeUnit.NANOSECONDS.toMicros( System.nanoTime() - sentAt ) );
+            }
+        });
+    }
+
+    private class SendStats {
+        final long start = System.nanoTime();
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        // only acked sends count, a failed send moved nothing
+        void acked(int size) {
+            records.incrementAndGet();
+            bytes.addAndGet( size );
+        }
+
+        void report() {
+            double seconds = Math.max( 1, System.nanoTime() - start ) / 1_000_000_000.0;
+            printf("Sent %,d records (%,d bytes) in %.1fs: %,.0f records/s %.2f MB/s%n",
+                    records.get(), bytes.get(), seconds,
+                    records.get() / seconds, bytes.get() / seconds / (1024 * 1024));
+            printf("Ack latency ms: p50=%.1f p99=%.1f max=%.1f%n",
+                    latency.getPercentile(50) / 1000.0, latency.getPercentile(99) / 1000.0, latency.getMax() / 1000.0);
+            if( error.get() != null ) printf("%,d records failed. First error: %s%n", failed.get(), error.get().getMessage());
+        }
+    }
+}
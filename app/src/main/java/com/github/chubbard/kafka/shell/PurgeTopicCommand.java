@@ -1,18 +1,18 @@
 package com.github.chubbard.kafka.shell;
 
 import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.config.TopicConfig;
 import org.jline.builtins.Completers;
 import org.jline.reader.Completer;
 import org.jline.reader.ParsedLine;
-import org.jline.reader.impl.completer.StringsCompleter;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.jline.builtins.Completers.TreeCompleter.node;
 
@@ -21,7 +21,15 @@ public class PurgeTopicCommand extends ShellCommand {
     public PurgeTopicCommand(App app) {
         super(app);
 
-        help = String.format("<topic_name>%n%1$15sPurges all messages in a topic by setting the retention.ms to 0 and restoring it back to the previous setting.", "");
+        help = String.format(
+                String.join( "%n%1$20s",
+                        "<topic_name>",
+                        "[before <timestamp|offset>]",
+                        "Deletes the records in every partition up to the end, or up to the first record at or after",
+                        "the timestamp, or up to the offset when a plain number is given.  The topic's",
+                        "cleanup.policy has to include delete, a compact only topic can't be purged."
+                ), ""
+        );
     }
 
     @Override
@@ -33,7 +41,9 @@ public class PurgeTopicCommand extends ShellCommand {
     public Completer getCompleter() {
         return new Completers.TreeCompleter(
                 node("purge",
-                        node(new StringsCompleter(this::getTopics))
+                        node(topicCompleter(),
+                                node("before")
+                        )
                 )
         );
     }
@@ -46,37 +56,73 @@ public class PurgeTopicCommand extends ShellCommand {
             return;
         }
         String topicName = words.get(1);
+        Optional<String> before = getOption( words, "before" );
+        Long beforeOffset = before.filter( b -> b.matches("\\d+") ).map(Long::parseLong).orElse(null);
+        Long beforeTime = before.filter( b -> beforeOffset == null ).map(ShellCommand::parseTimestamp).orElse(null);
 
-        ConfigResource topicResource = new ConfigResource( ConfigResource.Type.TOPIC, topicName );
-        Map<ConfigResource, Config> configs = getConfigFor(ConfigResource.Type.TOPIC, topicName);
+        long start = System.currentTimeMillis();
+        AdminClient admin = getAdminClient();
+        ConfigResource resource = new ConfigResource( ConfigResource.Type.TOPIC, topicName );
+        KafkaFuture<Map<ConfigResource,Config>> configs = admin.describeConfigs( Collections.singleton( resource ) ).all();
+        List<TopicPartition> partitions = admin.describeTopics( Collections.singleton(topicName) ).all().get()
+                .get( topicName ).partitions().stream()
+                .map( p -> new TopicPartition( topicName, p.partition() ) )
+                .collect(Collectors.toList());
 
+        // the broker refuses to delete records unless the cleanup policy includes delete
+        ConfigEntry policy = configs.get().get( resource ).get( TopicConfig.CLEANUP_POLICY_CONFIG );
+        if( policy != null && !Arrays.asList( policy.value().split(",") ).contains( TopicConfig.CLEANUP_POLICY_DELETE ) ) {
+            throw new CommandFailedException( String.format("%s has cleanup.policy=%s and records can only be purged when it includes delete, e.g. config topic %s append cleanup.policy=delete",
+                    topicName, policy.value(), topicName) );
+        }
 
-        AlterConfigsResult alterResult = getAdminClient().incrementalAlterConfigs(
-                Map.of(topicResource,
-                        Arrays.asList(
-                                new AlterConfigOp(new ConfigEntry(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_DELETE), AlterConfigOp.OpType.SET),
-                                new AlterConfigOp(new ConfigEntry(TopicConfig.RETENTION_MS_CONFIG, "0"), AlterConfigOp.OpType.SET),
-                                new AlterConfigOp(new ConfigEntry(TopicConfig.FILE_DELETE_DELAY_MS_CONFIG, "10"), AlterConfigOp.OpType.SET )
-                        )
-                )
-        );
-        alterResult.all().get();
+        // all the offset lookups go out together, one request per spec rather than one per partition
+        CompletableFuture<Map<TopicPartition,ListOffsetsResult.ListOffsetsResultInfo>> earliest = ConsumerLag.listOffsets( admin, partitions, OffsetSpec.earliest() );
+        CompletableFuture<Map<TopicPartition,ListOffsetsResult.ListOffsetsResultInfo>> latest = ConsumerLag.listOffsets( admin, partitions, OffsetSpec.latest() );
+        CompletableFuture<Map<TopicPartition,ListOffsetsResult.ListOffsetsResultInfo>> atTime = beforeTime != null
+                ? ConsumerLag.listOffsets( admin, partitions, OffsetSpec.forTimestamp( beforeTime ) )
+                : CompletableFuture.completedFuture( Collections.emptyMap() );
+        CompletableFuture.allOf( earliest, latest, atTime ).get();
 
-        Thread.sleep(TimeUnit.SECONDS.toMillis(1) );
+        Map<TopicPartition,RecordsToDelete> toDelete = new HashMap<>();
+        Map<TopicPartition,Long> targets = new HashMap<>();
+        for( TopicPartition tp : partitions ) {
+            long logStart = earliest.get().get( tp ).offset();
+            long logEnd = latest.get().get( tp ).offset();
+            long target = logEnd;
+            if( beforeOffset != null ) target = Math.min( beforeOffset, logEnd );
+            ListOffsetsResult.ListOffsetsResultInfo timeOffset = atTime.get().get( tp );
+            // -1 means nothing is at or after the timestamp so everything goes
+            if( timeOffset != null && timeOffset.offset() >= 0 ) target = Math.min( timeOffset.offset(), logEnd );
+            if( target > logStart ) {
+                toDelete.put( tp, RecordsToDelete.beforeOffset( target ) );
+                targets.put( tp, target );
+            }
+        }
+        if( toDelete.isEmpty() ) {
+            println("Nothing to purge in " + topicName + ".");
+            return;
+        }
 
-        ConfigEntry cleanUpPolicy = configs.get( topicResource ).get( TopicConfig.CLEANUP_POLICY_CONFIG );
-        ConfigEntry retentionMs = configs.get( topicResource ).get(TopicConfig.RETENTION_MS_CONFIG );
-        ConfigEntry fileDeleteMs = configs.get( topicResource ).get( TopicConfig.FILE_DELETE_DELAY_MS_CONFIG );
-        AlterConfigsResult revert = getAdminClient().incrementalAlterConfigs(
-                Map.of( topicResource,
-                        Arrays.asList(
-                                new AlterConfigOp(cleanUpPolicy, AlterConfigOp.OpType.SET),
-                                new AlterConfigOp(retentionMs, AlterConfigOp.OpType.SET),
-                                new AlterConfigOp(fileDeleteMs, AlterConfigOp.OpType.SET)
-                        ))
-        );
+        Map<TopicPartition,KafkaFuture<DeletedRecords>> results = admin.deleteRecords( toDelete ).lowWatermarks();
+        long purged = 0;
+        List<String> failures = new ArrayList<>();
+        for( Map.Entry<TopicPartition,KafkaFuture<DeletedRecords>> e : results.entrySet() ) {
+            TopicPartition tp = e.getKey();
+            try {
+                long lowWatermark = e.getValue().get().lowWatermark();
+                if( lowWatermark < targets.get( tp ) ) {
+                    failures.add( String.format("%s log start is %d, expected %d", tp, lowWatermark, targets.get( tp )) );
+                }
+                purged += lowWatermark - earliest.get().get( tp ).offset();
+            } catch( ExecutionException ex ) {
+                failures.add( tp + " " + ex.getCause().getMessage() );
+            }
+        }
 
-        revert.all().get();
-        println("Topic " + topicName + " purged.");
+        printf("Purged %,d records from %d of %d partitions of %s in %,dms.%n",
+                purged, toDelete.size() - failures.size(), partitions.size(), topicName, System.currentTimeMillis() - start);
+        failures.stream().sorted().forEach( f -> println("Failed: " + f) );
+        if( !failures.isEmpty() ) throw new CommandFailedException( String.format("%d of %d partitions of %s could not be purged.", failures.size(), toDelete.size(), topicName) );
     }
 }
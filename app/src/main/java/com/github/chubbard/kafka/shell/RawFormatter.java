@@ -0,0 +1,78 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.record.TimestampType;
+
+import java.util.Iterator;
+
+/**
+ * Writes the key, value and header bytes as they are, laid out like kafka's DefaultMessageFormatter:
+ * timestamp, partition, offset, headers, key and value in that order, each separated by key.separator
+ * and the record ended with line.separator.
+ */
+public class RawFormatter implements RecordFormatter {
+
+    protected FormatOptions options;
+
+    @Override
+    public String getName() {
+        return "raw";
+    }
+
+    @Override
+    public void configure(FormatOptions options) {
+        this.options = options;
+    }
+
+    @Override
+    public void writeTo(ConsumerRecord<byte[],byte[]> record, FormatBuffer out) {
+        if( options.isPrintTimestamp() ) {
+            if( record.timestampType() != TimestampType.NO_TIMESTAMP_TYPE ) {
+                out.appendAscii( record.timestampType().name ).append( (byte) ':' ).appendLong( record.timestamp() );
+            } else {
+                out.appendAscii( "NO_TIMESTAMP" );
+            }
+            separator( out, options.isPrintPartition() || options.isPrintOffset() || options.isPrintHeaders() || options.isPrintKey() || options.isPrintValue() );
+        }
+        if( options.isPrintPartition() ) {
+            out.appendAscii( "Partition:" ).appendLong( record.partition() );
+            separator( out, options.isPrintOffset() || options.isPrintHeaders() || options.isPrintKey() || options.isPrintValue() );
+        }
+        if( options.isPrintOffset() ) {
+            out.appendAscii( "Offset:" ).appendLong( record.offset() );
+            separator( out, options.isPrintHeaders() || options.isPrintKey() || options.isPrintValue() );
+        }
+        if( options.isPrintHeaders() ) {
+            Iterator<Header> headers = record.headers().iterator();
+            if( !headers.hasNext() ) out.appendAscii( "NO_HEADERS" );
+            while( headers.hasNext() ) {
+                Header header = headers.next();
+                out.appendUtf8( header.key() ).append( (byte) ':' );
+                appendData( out, header.value() );
+                if( headers.hasNext() ) out.append( options.getHeadersSeparator() );
+            }
+            separator( out, options.isPrintKey() || options.isPrintValue() );
+        }
+        if( options.isPrintKey() ) {
+            appendData( out, record.key() );
+            separator( out, options.isPrintValue() );
+        }
+        if( options.isPrintValue() ) {
+            appendData( out, record.value() );
+            out.append( options.getLineSeparator() );
+        }
+    }
+
+    private void separator(FormatBuffer out, boolean moreColumns) {
+        out.append( moreColumns ? options.getKeySeparator() : options.getLineSeparator() );
+    }
+
+    protected void appendData(FormatBuffer out, byte[] data) {
+        if( data == null ) {
+            out.append( options.getNullLiteral() );
+        } else {
+            out.append( data );
+        }
+    }
+}
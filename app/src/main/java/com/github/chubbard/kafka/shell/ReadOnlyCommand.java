@@ -0,0 +1,8 @@
+package com.github.chubbard.kafka.shell;
+
+/**
+ * A command that only reads from the cluster, so it can be run against every connected cluster at once
+ * with --all-clusters.
+ */
+public interface ReadOnlyCommand {
+}
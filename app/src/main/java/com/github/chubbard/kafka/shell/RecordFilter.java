@@ -0,0 +1,348 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A predicate over raw consumer records compiled from a where clause, for example:
+ *
+ * <pre>
+ *     key = order-42
+ *     value contains ERROR and header.source != billing
+ *     value.$.customer.id = 1138 or timestamp &gt;= 2021-06-01T00:00:00Z
+ *     value matches "timeout after \d+ms"
+ *     header.trace-id exists
+ * </pre>
+ *
+ * Fields are key, value, header.&lt;name&gt;, timestamp, and a JSON path into the key or value
+ * (key.$.path, value.$.path or just $.path for the value).  The byte operators are =, !=, contains and
+ * matches, and timestamp supports =, !=, &lt;, &lt;=, &gt; and &gt;=.  Conditions can be combined with and,
+ * or and not where and binds tighter than or.
+ *
+ * Everything is compiled once so evaluating a record works straight on the key, value and header bytes
+ * without decoding them.  Regular expressions see the bytes as ISO-8859-1 characters, so ASCII patterns
+ * match UTF-8 payloads as expected.
+ */
+public abstract class RecordFilter {
+
+    public abstract boolean test(ConsumerRecord<byte[],byte[]> record);
+
+    /**
+     * Returns only the records that match the filter.  When every record matches the original records are
+     * returned.
+     */
+    public ConsumerRecords<byte[],byte[]> apply(ConsumerRecords<byte[],byte[]> records) {
+        if( records.isEmpty() ) return records;
+        Map<TopicPartition,List<ConsumerRecord<byte[],byte[]>>> matched = new HashMap<>();
+        int count = 0;
+        for( TopicPartition tp : records.partitions() ) {
+            List<ConsumerRecord<byte[],byte[]>> partitionRecords = records.records( tp );
+            List<ConsumerRecord<byte[],byte[]>> kept = new ArrayList<>( partitionRecords.size() );
+            for( ConsumerRecord<byte[],byte[]> rec : partitionRecords ) {
+                if( test( rec ) ) kept.add( rec );
+            }
+            if( !kept.isEmpty() ) matched.put( tp, kept );
+            count += kept.size();
+        }
+        return count == records.count() ? records : new ConsumerRecords<>( matched );
+    }
+
+    public static RecordFilter compile(List<String> words) {
+        if( words.isEmpty() ) throw new IllegalArgumentException("Empty where clause.");
+        Parser parser = new Parser( words );
+        RecordFilter filter = parser.or();
+        if( parser.pos < words.size() ) throw new IllegalArgumentException("Unexpected '" + words.get(parser.pos) + "' in where clause.");
+        return filter;
+    }
+
+    private static class Parser {
+        final List<String> words;
+        int pos = 0;
+
+        Parser(List<String> words) {
+            this.words = words;
+        }
+
+        RecordFilter or() {
+            RecordFilter left = and();
+            while( pos < words.size() && words.get(pos).equalsIgnoreCase("or") ) {
+                pos++;
+                RecordFilter l = left, r = and();
+                left = new RecordFilter() {
+                    @Override
+                    public boolean test(ConsumerRecord<byte[], byte[]> record) {
+                        return l.test( record ) || r.test( record );
+                    }
+                };
+            }
+            return left;
+        }
+
+        RecordFilter and() {
+            RecordFilter left = condition();
+            while( pos < words.size() && words.get(pos).equalsIgnoreCase("and") ) {
+                pos++;
+                RecordFilter l = left, r = condition();
+                left = new RecordFilter() {
+                    @Override
+                    public boolean test(ConsumerRecord<byte[], byte[]> record) {
+                        return l.test( record ) && r.test( record );
+                    }
+                };
+            }
+            return left;
+        }
+
+        RecordFilter condition() {
+            String field = next("field");
+            if( field.equalsIgnoreCase("not") ) {
+                RecordFilter negated = condition();
+                return new RecordFilter() {
+                    @Override
+                    public boolean test(ConsumerRecord<byte[], byte[]> record) {
+                        return !negated.test( record );
+                    }
+                };
+            }
+            String op = next("operator").toLowerCase();
+            if( field.equalsIgnoreCase("timestamp") ) {
+                return new TimestampFilter( op, ShellCommand.parseTimestamp( next("timestamp") ) );
+            }
+            FieldAccessor accessor = FieldAccessor.of( field );
+            if( op.equals("exists") ) return new ExistsFilter( accessor );
+            String literal = next("value");
+            switch( op ) {
+                case "=":
+                case "==":
+                    return new EqualsFilter( accessor, literal, false );
+                case "!=":
+                    return new EqualsFilter( accessor, literal, true );
+                case "contains":
+                    return new ContainsFilter( accessor, literal );
+                case "matches":
+                    return new MatchesFilter( accessor, Pattern.compile( literal ) );
+                default:
+                    throw new IllegalArgumentException("Unknown operator " + op + " for " + field);
+            }
+        }
+
+        String next(String expected) {
+            if( pos >= words.size() ) throw new IllegalArgumentException("Expected " + expected + " at the end of the where clause.");
+            return words.get( pos++ );
+        }
+    }
+
+    /**
+     * Locates the bytes of a field within a record.  The location is packed the same way as
+     * {@link JsonPath#find(byte[], int, int)} so no range object is created per record.
+     */
+    static class FieldAccessor {
+        final int source;
+        final String header;
+        final JsonPath path;
+
+        static final int KEY = 0, VALUE = 1, HEADER = 2;
+
+        FieldAccessor(int source, String header, JsonPath path) {
+            this.source = source;
+            this.header = header;
+            this.path = path;
+        }
+
+        static FieldAccessor of(String field) {
+            String lower = field.toLowerCase();
+            if( lower.equals("key") ) return new FieldAccessor( KEY, null, null );
+            if( lower.equals("value") ) return new FieldAccessor( VALUE, null, null );
+            if( lower.startsWith("$") ) return new FieldAccessor( VALUE, null, JsonPath.compile( field ) );
+            if( lower.startsWith("key.$") ) return new FieldAccessor( KEY, null, JsonPath.compile( field.substring(4) ) );
+            if( lower.startsWith("value.$") ) return new FieldAccessor( VALUE, null, JsonPath.compile( field.substring(6) ) );
+            if( lower.startsWith("header.") && field.length() > 7 ) return new FieldAccessor( HEADER, field.substring(7), null );
+            throw new IllegalArgumentException("Unknown field " + field + ".  Expected key, value, header.<name>, timestamp or a JSON path.");
+        }
+
+        byte[] bytes(ConsumerRecord<byte[],byte[]> record) {
+            switch( source ) {
+                case KEY:
+                    return record.key();
+                case VALUE:
+                    return record.value();
+                default:
+                    Header h = record.headers().lastHeader( header );
+                    return h != null ? h.value() : null;
+            }
+        }
+
+        long locate(byte[] data) {
+            if( data == null ) return JsonPath.NOT_FOUND;
+            if( path == null ) return data.length;
+            return path.find( data, 0, data.length );
+        }
+    }
+
+    private static class ExistsFilter extends RecordFilter {
+        final FieldAccessor accessor;
+
+        ExistsFilter(FieldAccessor accessor) {
+            this.accessor = accessor;
+        }
+
+        @Override
+        public boolean test(ConsumerRecord<byte[], byte[]> record) {
+            return accessor.locate( accessor.bytes( record ) ) != JsonPath.NOT_FOUND;
+        }
+    }
+
+    private static class EqualsFilter extends RecordFilter {
+        final FieldAccessor accessor;
+        final byte[] literal;
+        final boolean negate;
+
+        EqualsFilter(FieldAccessor accessor, String literal, boolean negate) {
+            this.accessor = accessor;
+            this.literal = literal.getBytes(StandardCharsets.UTF_8);
+            this.negate = negate;
+        }
+
+        @Override
+        public boolean test(ConsumerRecord<byte[], byte[]> record) {
+            byte[] data = accessor.bytes( record );
+            long location = accessor.locate( data );
+            if( location == JsonPath.NOT_FOUND ) return negate;
+            int from = JsonPath.start( location ), to = JsonPath.end( location );
+            boolean equal = to - from == literal.length;
+            for( int i = 0; equal && i < literal.length; i++ ) {
+                equal = data[from + i] == literal[i];
+            }
+            return equal != negate;
+        }
+    }
+
+    /**
+     * Substring search using Boyer-Moore-Horspool with the skip table built when the filter is compiled.
+     */
+    private static class ContainsFilter extends RecordFilter {
+        final FieldAccessor accessor;
+        final byte[] pattern;
+        final int[] skip = new int[256];
+
+        ContainsFilter(FieldAccessor accessor, String literal) {
+            this.accessor = accessor;
+            this.pattern = literal.getBytes(StandardCharsets.UTF_8);
+            Arrays.fill( skip, pattern.length );
+            for( int i = 0; i < pattern.length - 1; i++ ) {
+                skip[ pattern[i] & 0xff ] = pattern.length - 1 - i;
+            }
+        }
+
+        @Override
+        public boolean test(ConsumerRecord<byte[], byte[]> record) {
+            byte[] data = accessor.bytes( record );
+            long location = accessor.locate( data );
+            if( location == JsonPath.NOT_FOUND ) return false;
+            if( pattern.length == 0 ) return true;
+            int from = JsonPath.start( location ), to = JsonPath.end( location );
+            int last = pattern.length - 1;
+            for( int i = from; i + last < to; i += skip[ data[i + last] & 0xff ] ) {
+                int j = last;
+                while( j >= 0 && data[i + j] == pattern[j] ) j--;
+                if( j < 0 ) return true;
+            }
+            return false;
+        }
+    }
+
+    private static class MatchesFilter extends RecordFilter {
+        final FieldAccessor accessor;
+        final ThreadLocal<ByteSequence> sequences = ThreadLocal.withInitial( ByteSequence::new );
+        final ThreadLocal<Matcher> matchers;
+
+        MatchesFilter(FieldAccessor accessor, Pattern pattern) {
+            this.accessor = accessor;
+            this.matchers = ThreadLocal.withInitial( () -> pattern.matcher("") );
+        }
+
+        @Override
+        public boolean test(ConsumerRecord<byte[], byte[]> record) {
+            byte[] data = accessor.bytes( record );
+            long location = accessor.locate( data );
+            if( location == JsonPath.NOT_FOUND ) return false;
+            ByteSequence sequence = sequences.get();
+            sequence.wrap( data, JsonPath.start( location ), JsonPath.end( location ) );
+            try {
+                return matchers.get().reset( sequence ).find();
+            } finally {
+                sequence.wrap( null, 0, 0 );
+            }
+        }
+    }
+
+    private static class TimestampFilter extends RecordFilter {
+        final String op;
+        final long timestamp;
+
+        TimestampFilter(String op, long timestamp) {
+            if( !Arrays.asList("=", "==", "!=", "<", "<=", ">", ">=").contains( op ) ) {
+                throw new IllegalArgumentException("Unknown operator " + op + " for timestamp");
+            }
+            this.op = op;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public boolean test(ConsumerRecord<byte[], byte[]> record) {
+            int c = Long.compare( record.timestamp(), timestamp );
+            switch( op ) {
+                case "<": return c < 0;
+                case "<=": return c <= 0;
+                case ">": return c > 0;
+                case ">=": return c >= 0;
+                case "!=": return c != 0;
+                default: return c == 0;
+            }
+        }
+    }
+
+    /**
+     * A reusable view of a byte range as characters so the regex engine can run over the raw bytes.
+     */
+    private static class ByteSequence implements CharSequence {
+        byte[] data;
+        int from;
+        int to;
+
+        void wrap(byte[] data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (data[from + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            ByteSequence sub = new ByteSequence();
+            sub.wrap( data, from + start, from + end );
+            return sub;
+        }
+
+        @Override
+        public String toString() {
+            return new String( data, from, to - from, StandardCharsets.ISO_8859_1 );
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Turns a consumed record into bytes for consume's output.  Formatters append straight into the
+ * worker's reusable {@link FormatBuffer}, so a formatter that only uses the buffer's append methods
+ * doesn't allocate anything per record.
+ *
+ * Each format worker gets its own instance, so implementations don't need to be thread safe.  Besides
+ * the built-in formatters listed in {@link RecordFormatters}, formatters on the classpath are found with
+ * {@link java.util.ServiceLoader} from META-INF/services/com.github.chubbard.kafka.shell.RecordFormatter
+ * and need a public no-arg constructor.
+ */
+public interface RecordFormatter extends AutoCloseable {
+
+    /**
+     * @return the name that selects this formatter with consume's format option.
+     */
+    String getName();
+
+    /**
+     * Called once before the first record with the print.* flags, separators and any other options
+     * given to consume.
+     */
+    default void configure(FormatOptions options) {
+    }
+
+    void writeTo(ConsumerRecord<byte[],byte[]> record, FormatBuffer out);
+
+    @Override
+    default void close() {
+    }
+}
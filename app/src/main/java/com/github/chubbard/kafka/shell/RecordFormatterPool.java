@@ -0,0 +1,126 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Formats the records returned from a poll in parallel.  Each worker is a single thread with its own
+ * formatter and its own reusable buffer so neither has to be thread safe.  Partitions are striped
+ * across the workers by partition number which means a given partition is always formatted by the
+ * same worker and its records stay in offset order.  The formatted chunks are written to the output either in partition
+ * order (ordered) or as soon as each worker finishes (interleaved).  Worker buffers are reset at the
+ * start of every batch so a steady stream of polls doesn't allocate new buffers for each partition.
+ */
+public class RecordFormatterPool implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger( RecordFormatterPool.class );
+
+    private final List<ExecutorService> workers;
+    private final List<RecordFormatter> formatters;
+    private final List<FormatBuffer> buffers;
+    private final boolean ordered;
+    private final boolean skipErrors;
+
+    public RecordFormatterPool(int workerCount, Supplier<RecordFormatter> formatterFactory, boolean ordered, boolean skipErrors) {
+        if( workerCount < 1 ) throw new IllegalArgumentException("Worker count must be at least 1 but was " + workerCount);
+        this.ordered = ordered;
+        this.skipErrors = skipErrors;
+        this.workers = new ArrayList<>( workerCount );
+        this.formatters = new ArrayList<>( workerCount );
+        this.buffers = new ArrayList<>( workerCount );
+        for( int i = 0; i < workerCount; i++ ) {
+            String name = "formatter-" + i;
+            workers.add( Executors.newSingleThreadExecutor( r -> {
+                Thread t = new Thread( r, name );
+                t.setDaemon( true );
+                return t;
+            }) );
+            formatters.add( formatterFactory.get() );
+            buffers.add( new FormatBuffer( 64 * 1024 ) );
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Formats every record in the batch and writes the result to the given sink.  This returns once
+     * the whole batch has been handed to the sink.
+     *
+     * @return the number of records written.
+     */
+    public int write(ConsumerRecords<byte[],byte[]> records, OutputSink output) throws IOException, ExecutionException, InterruptedException {
+        if( records.isEmpty() ) {
+            output.endBatch();
+            return 0;
+        }
+        buffers.forEach( FormatBuffer::reset );
+
+        List<TopicPartition> partitions = new ArrayList<>( records.partitions() );
+        partitions.sort( Comparator.comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition) );
+
+        BlockingQueue<CompletableFuture<Chunk>> completed = new ArrayBlockingQueue<>( partitions.size() );
+        List<CompletableFuture<Chunk>> pending = new ArrayList<>( partitions.size() );
+        for( TopicPartition tp : partitions ) {
+            int stripe = Math.floorMod( tp.partition(), workers.size() );
+            RecordFormatter formatter = formatters.get( stripe );
+            FormatBuffer buffer = buffers.get( stripe );
+            List<ConsumerRecord<byte[],byte[]>> partitionRecords = records.records( tp );
+            CompletableFuture<Chunk> future = CompletableFuture.supplyAsync( () -> format( formatter, buffer, partitionRecords ), workers.get( stripe ) );
+            future.whenComplete( (chunk, t) -> completed.add( future ) );
+            pending.add( future );
+        }
+
+        for( int i = 0; i < pending.size(); i++ ) {
+            CompletableFuture<Chunk> next = ordered ? pending.get(i) : completed.take();
+            Chunk chunk = next.get();
+            output.write( chunk.data, chunk.offset, chunk.length );
+        }
+        output.endBatch();
+        return records.count();
+    }
+
+    private Chunk format(RecordFormatter formatter, FormatBuffer buffer, List<ConsumerRecord<byte[],byte[]>> records) {
+        int start = buffer.size();
+        for( ConsumerRecord<byte[],byte[]> rec : records ) {
+            int mark = buffer.size();
+            try {
+                formatter.writeTo( rec, buffer );
+            } catch( RuntimeException ex ) {
+                if( !skipErrors ) throw ex;
+                // drop whatever the formatter wrote before failing
+                buffer.truncate( mark );
+                logger.warn("Skipping record {}-{}@{} due to error", rec.topic(), rec.partition(), rec.offset(), ex);
+            }
+        }
+        // capture the array now, a later chunk may grow the buffer into a new array but never rewrites this range
+        return new Chunk( buffer.array(), start, buffer.size() - start );
+    }
+
+    @Override
+    public void close() {
+        workers.forEach( ExecutorService::shutdownNow );
+        formatters.forEach( RecordFormatter::close );
+    }
+
+    private static class Chunk {
+        final byte[] data;
+        final int offset;
+        final int length;
+
+        Chunk(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
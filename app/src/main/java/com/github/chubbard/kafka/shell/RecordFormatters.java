@@ -0,0 +1,45 @@
+package com.github.chubbard.kafka.shell;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Finds formatters by name: the built-in raw, hex, json-lines, csv and kafka formatters, plus any
+ * {@link RecordFormatter} registered with {@link ServiceLoader}.  A built-in name can't be replaced.
+ */
+public final class RecordFormatters {
+
+    public static final String DEFAULT = "raw";
+
+    private static volatile Map<String,Supplier<RecordFormatter>> available;
+
+    private RecordFormatters() {
+    }
+
+    /**
+     * @return a factory for the named formatter, or null if there's no formatter by that name.
+     */
+    public static Supplier<RecordFormatter> find(String name) {
+        return getAvailable().get( name.toLowerCase() );
+    }
+
+    public static Set<String> getNames() {
+        return getAvailable().keySet();
+    }
+
+    private static Map<String,Supplier<RecordFormatter>> getAvailable() {
+        if( available == null ) {
+            Map<String,Supplier<RecordFormatter>> formatters = new LinkedHashMap<>();
+            formatters.put( "raw", RawFormatter::new );
+            formatters.put( "hex", HexFormatter::new );
+            formatters.put( "json-lines", JsonLinesFormatter::new );
+            formatters.put( "csv", CsvFormatter::new );
+            formatters.put( "kafka", KafkaMessageFormatter::new );
+            // each get() on a provider creates a new instance, so every worker gets its own
+            ServiceLoader.load( RecordFormatter.class ).stream().forEach( provider ->
+                    formatters.putIfAbsent( provider.get().getName().toLowerCase(), provider::get ) );
+            available = Collections.unmodifiableMap( formatters );
+        }
+        return available;
+    }
+}
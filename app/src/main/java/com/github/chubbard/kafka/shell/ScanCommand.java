@@ -0,0 +1,223 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class ScanCommand extends ShellCommand {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    public ScanCommand(App app) {
+        super(app);
+
+        help = String.format(
+                String.join( "%n%1$20s",
+                        "<topic> for <pattern>",
+                        "[in <key|value|any>]",
+                        "[regex]",
+                        "[workers <numeric>]",
+                        "[limit <numeric>]"
+                ), ""
+        );
+    }
+
+    @Override
+    public String getCommand() {
+        return "scan";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("scan",
+                        node(topicCompleter(),
+                                node("for"),
+                                node("in", node("key", "value", "any")),
+                                node("regex"),
+                                node("workers", "limit")
+                        )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        Optional<String> pattern = getOption( words, "for" );
+        if( words.size() < 4 || !pattern.isPresent() ) {
+            println("Missing topic or pattern.  Usage: scan <topic> for <pattern>");
+            return;
+        }
+        String topic = words.get(1);
+        String in = getOption( words, "in" ).orElse("any");
+        int limit = getOption( words, "limit" ).map(Integer::parseInt).orElse(DEFAULT_LIMIT);
+        RecordFilter filter = buildFilter( in, pattern.get(), hasOption( words, "regex" ) );
+
+        List<TopicPartition> partitions;
+        Map<TopicPartition,Long> starts;
+        Map<TopicPartition,Long> ends;
+        try( Consumer<byte[],byte[]> consumer = getConsumer() ) {
+            partitions = consumer.partitionsFor( topic ).stream()
+                    .map( info -> new TopicPartition( topic, info.partition() ) )
+                    .collect(Collectors.toList());
+            starts = consumer.beginningOffsets( partitions );
+            ends = consumer.endOffsets( partitions );
+        }
+        if( partitions.isEmpty() ) {
+            printf("Topic %s has no partitions.%n", topic);
+            return;
+        }
+        long total = partitions.stream().mapToLong( tp -> ends.get(tp) - starts.get(tp) ).sum();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int workerCount = getOption( words, "workers" ).map(Integer::parseInt).orElse( Math.max( 1, Math.min( partitions.size(), cores ) ) );
+        List<List<TopicPartition>> stripes = new ArrayList<>();
+        for( int i = 0; i < workerCount; i++ ) stripes.add( new ArrayList<>() );
+        partitions.forEach( tp -> stripes.get( Math.floorMod( tp.partition(), workerCount ) ).add( tp ) );
+        stripes.removeIf( List::isEmpty );
+
+        ScanProgress progress = new ScanProgress( limit );
+        List<Consumer<byte[],byte[]>> consumers = new CopyOnWriteArrayList<>();
+        printf("Scanning %,d records in %d partitions of %s with %d workers - Press Q to quit%n", total, partitions.size(), topic, stripes.size());
+        getTerminal().writer().flush();
+
+        ExecutorService pool = Executors.newFixedThreadPool( stripes.size() );
+        long start = System.currentTimeMillis();
+        try( KeyboardWatcher watcher = new KeyboardWatcher( getTerminal(), () -> consumers.forEach( Consumer::wakeup ) ) ) {
+            List<CompletableFuture<Void>> workers = stripes.stream()
+                    .map( stripe -> CompletableFuture.runAsync( () -> scan( stripe, starts, ends, filter, progress, consumers, watcher ), pool ) )
+                    .collect(Collectors.toList());
+            CompletableFuture<Void> all = CompletableFuture.allOf( workers.toArray(new CompletableFuture<?>[0]) );
+
+            int width = 0;
+            boolean done = false;
+            while( !done ) {
+                try {
+                    all.get( 1, TimeUnit.SECONDS );
+                    done = true;
+                } catch( TimeoutException e ) {
+                    // still running, report progress below
+                }
+                width = printMatches( progress, width );
+                if( !done ) width = printProgress( progress, total, start, width );
+            }
+            printMatches( progress, width );
+            if( watcher.isQuit() ) println("Scan interrupted.");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long elapsed = Math.max( 1, System.currentTimeMillis() - start );
+        printf("Scanned %,d records (%,d bytes) in %.1fs at %,.0f records/s. %,d matches found.%n",
+                progress.records.get(), progress.bytes.get(), elapsed / 1000.0,
+                progress.records.get() * 1000.0 / elapsed, progress.matches.get());
+        if( progress.matches.get() > limit ) printf("Only the first %,d matches were shown.%n", limit);
+    }
+
+    private RecordFilter buildFilter(String in, String pattern, boolean regex) {
+        String op = regex ? "matches" : "contains";
+        switch( in.toLowerCase() ) {
+            case "key":
+                return RecordFilter.compile( Arrays.asList( "key", op, pattern ) );
+            case "value":
+                return RecordFilter.compile( Arrays.asList( "value", op, pattern ) );
+            default:
+                return RecordFilter.compile( Arrays.asList( "key", op, pattern, "or", "value", op, pattern ) );
+        }
+    }
+
+    private void scan(List<TopicPartition> stripe, Map<TopicPartition,Long> starts, Map<TopicPartition,Long> ends,
+                      RecordFilter filter, ScanProgress progress, List<Consumer<byte[],byte[]>> consumers, KeyboardWatcher watcher) {
+        Map<String,Object> config = new HashMap<>();
+        config.put( ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false" );
+        config.put( ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "5000" );
+        try( Consumer<byte[],byte[]> consumer = getConsumer( config ) ) {
+            consumers.add( consumer );
+            try {
+                consumer.assign( stripe );
+                stripe.forEach( tp -> consumer.seek( tp, starts.get(tp) ) );
+                Map<TopicPartition,Long> stripeEnds = new HashMap<>();
+                stripe.forEach( tp -> stripeEnds.put( tp, ends.get(tp) ) );
+                ConsumeBounds bounds = new ConsumeBounds( stripeEnds, Long.MAX_VALUE );
+                bounds.update( consumer );
+
+                while( !bounds.isDone() && !watcher.isQuit() ) {
+                    ConsumerRecords<byte[],byte[]> records = bounds.apply( consumer.poll( Duration.ofMillis(ConsumeTopicCommand.DEFAULT_TIMEOUT_MS) ) );
+                    long bytes = 0;
+                    for( ConsumerRecord<byte[],byte[]> rec : records ) {
+                        bytes += Math.max( 0, rec.serializedKeySize() ) + Math.max( 0, rec.serializedValueSize() );
+                        if( filter.test( rec ) ) progress.found( rec );
+                    }
+                    progress.records.addAndGet( records.count() );
+                    progress.bytes.addAndGet( bytes );
+                    bounds.update( consumer );
+                }
+            } finally {
+                consumers.remove( consumer );
+            }
+        } catch( WakeupException ex ) {
+            // quit was pressed
+        }
+    }
+
+    private int printMatches(ScanProgress progress, int width) {
+        String match;
+        while( (match = progress.found.poll()) != null ) {
+            if( width > 0 ) {
+                printf("\r%" + width + "s\r", "");
+                width = 0;
+            }
+            println( match );
+        }
+        getTerminal().writer().flush();
+        return width;
+    }
+
+    private int printProgress(ScanProgress progress, long total, long start, int width) {
+        long records = progress.records.get();
+        long elapsed = Math.max( 1, System.currentTimeMillis() - start );
+        String status = String.format("%,d / %,d records (%.1f%%) %,d bytes %,.0f records/s %,d matches",
+                records, total, total > 0 ? records * 100.0 / total : 100.0, progress.bytes.get(),
+                records * 1000.0 / elapsed, progress.matches.get());
+        printf("\r%-" + Math.max( width, status.length() ) + "s", status);
+        getTerminal().writer().flush();
+        return Math.max( width, status.length() );
+    }
+
+    private static class ScanProgress {
+        final AtomicLong records = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong matches = new AtomicLong();
+        final Queue<String> found = new ConcurrentLinkedQueue<>();
+        final int limit;
+
+        ScanProgress(int limit) {
+            this.limit = limit;
+        }
+
+        void found(ConsumerRecord<byte[],byte[]> rec) {
+            if( matches.incrementAndGet() > limit ) return;
+            String key = rec.key() == null ? "null" : new String( rec.key(), StandardCharsets.UTF_8 );
+            if( key.length() > 40 ) key = key.substring(0, 40) + "...";
+            found.add( String.format("partition=%d offset=%d timestamp=%s key=%s",
+                    rec.partition(), rec.offset(), Instant.ofEpochMilli( rec.timestamp() ), key) );
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.chubbard.kafka.shell;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Avro schemas by schema registry id, read from a local directory instead of a live registry.  Schema
+ * 42 is either 42.avsc holding the schema itself, or 42.json holding the registry's response to
+ * GET /schemas/ids/42, i.e. {"schema": "..."}, so schemas can be exported from a registry with curl.
+ *
+ * Parsed schemas are kept in a bounded LRU shared by every format worker.  Schemas are immutable so
+ * sharing them is safe; the readers built from them are kept per worker by {@link AvroDecoder}.
+ */
+public class SchemaCache {
+
+    private static final Logger logger = LogManager.getLogger( SchemaCache.class );
+
+    public static final int DEFAULT_SIZE = 1000;
+
+    private final File directory;
+    private final Map<Integer,Schema> schemas;
+
+    public SchemaCache(File directory, int maxSize) {
+        this.directory = directory;
+        this.schemas = new LinkedHashMap<>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer,Schema> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @throws SerializationException when there's no schema file for the id or it can't be parsed.
+     */
+    public Schema get(int id) {
+        synchronized( schemas ) {
+            Schema schema = schemas.get( id );
+            if( schema != null ) return schema;
+        }
+        // parsed outside the lock, two workers loading the same id at once just both parse it
+        Schema schema = load( id );
+        synchronized( schemas ) {
+            schemas.put( id, schema );
+        }
+        return schema;
+    }
+
+    private Schema load(int id) {
+        try {
+            File avsc = new File( directory, id + ".avsc" );
+            if( avsc.exists() ) {
+                logger.info("Loading schema {}", avsc);
+                return new Schema.Parser().parse( avsc );
+            }
+            File json = new File( directory, id + ".json" );
+            if( json.exists() ) {
+                logger.info("Loading schema {}", json);
+                JsonNode response = new ObjectMapper().readTree( new String( Files.readAllBytes( json.toPath() ), StandardCharsets.UTF_8 ) );
+                JsonNode schema = response.get("schema");
+                if( schema == null || !schema.isTextual() ) throw new SerializationException( json + " has no schema field" );
+                return new Schema.Parser().parse( schema.asText() );
+            }
+        } catch( IOException | RuntimeException ex ) {
+            if( ex instanceof SerializationException ) throw (SerializationException) ex;
+            throw new SerializationException( "Could not load schema " + id + ": " + ex.getMessage(), ex );
+        }
+        throw new SerializationException( "No schema " + id + ".avsc or " + id + ".json in " + directory );
+    }
+}
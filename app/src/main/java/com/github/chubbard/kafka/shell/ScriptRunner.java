@@ -0,0 +1,81 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.ParsedLine;
+import org.jline.reader.Parser;
+import org.jline.reader.impl.DefaultParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Runs the commands in a script, one per line, without a line reader.  Blank lines and lines starting
+ * with # are skipped.  Consecutive creates, config changes and deletes are collected in an
+ * {@link AdminBatch} and sent together when a line can't join the batch; every other command runs on
+ * its own once the pending batch has been sent, so the script's order is kept wherever it matters.
+ */
+public class ScriptRunner {
+
+    private final App app;
+    private final Parser parser = new DefaultParser();
+    private AdminBatch batch = new AdminBatch();
+    private int failures = 0;
+
+    public ScriptRunner(App app) {
+        this.app = app;
+    }
+
+    /**
+     * @return the number of commands that failed.
+     */
+    public int run(String name, BufferedReader script) throws IOException, InterruptedException {
+        PrintWriter out = app.getTerminal().writer();
+        String line;
+        int lineNumber = 0;
+        while( !app.isDone() && (line = script.readLine()) != null ) {
+            lineNumber++;
+            line = line.trim();
+            if( line.isEmpty() || line.startsWith("#") ) continue;
+            String source = name + ":" + lineNumber;
+
+            ParsedLine pl = parser.parse( line, 0 );
+            ShellCommand cmd = app.findCommand( pl.word() );
+            if( cmd == null ) {
+                flush();
+                failures++;
+                out.printf("%s: Unknown command %s%n", source, pl.word());
+                continue;
+            }
+            if( cmd instanceof BatchableCommand && ((BatchableCommand) cmd).isBatchable( pl.words() ) ) {
+                add( (BatchableCommand) cmd, pl, source );
+            } else {
+                flush();
+                if( !app.execute( cmd, pl ) ) failures++;
+            }
+        }
+        flush();
+        return failures;
+    }
+
+    private void add(BatchableCommand cmd, ParsedLine pl, String source) throws InterruptedException {
+        try {
+            batch.setSource( source );
+            if( !cmd.addTo( batch, pl.words() ) ) {
+                flush();
+                batch.setSource( source );
+                cmd.addTo( batch, pl.words() );
+            }
+        } catch( RuntimeException ex ) {
+            failures++;
+            app.getTerminal().writer().printf("%s: Error: %s%n", source, ex.getMessage());
+        }
+    }
+
+    private void flush() throws InterruptedException {
+        if( batch.isEmpty() ) return;
+        failures += batch.execute( app.getAdmin(), app.getTerminal().writer() );
+        if( batch.hasTopicChanges() ) app.getMetadataCache().invalidate( MetadataCache.Kind.TOPICS );
+        if( batch.hasGroupChanges() ) app.getMetadataCache().invalidate( MetadataCache.Kind.GROUPS );
+        batch = new AdminBatch();
+    }
+}
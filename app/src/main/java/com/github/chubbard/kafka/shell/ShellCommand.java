@@ -2,26 +2,28 @@ package com.github.chubbard.kafka.shell;
 
 import org.apache.kafka.clients.admin.*;
 import org.apache.kafka.clients.consumer.Consumer;
-import org.apache.kafka.common.Node;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.config.ConfigResource;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import org.apache.kafka.common.serialization.Serializer;
 import org.jline.reader.Completer;
 import org.jline.reader.ParsedLine;
 import org.jline.reader.impl.completer.ArgumentCompleter;
 import org.jline.reader.impl.completer.StringsCompleter;
 import org.jline.terminal.Terminal;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public abstract class ShellCommand {
 
-    private static final Logger logger = LogManager.getLogger( ShellCommand.class );
-
     protected App app;
     protected String help;
     protected ConfigKeys configKeys;
@@ -42,6 +44,18 @@ public abstract class ShellCommand {
         return app.getConsumer();
     }
 
+    public Consumer<byte[],byte[]> getConsumer(Map<String,Object> overrides) {
+        return app.getConsumer( overrides );
+    }
+
+    public Producer<byte[],byte[]> getProducer(Map<String,Object> overrides) {
+        return app.getProducer( overrides );
+    }
+
+    public <K,V> Producer<K,V> getProducer(Map<String,Object> overrides, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return app.getProducer( overrides, keySerializer, valueSerializer );
+    }
+
     public void println( String message ) {
         app.getTerminal().writer().println( message );
     }
@@ -69,34 +83,32 @@ public abstract class ShellCommand {
         return configKeys.getTopicKeys();
     }
 
+    public MetadataCache getMetadataCache() {
+        return app.getMetadataCache();
+    }
+
     public Collection<String> getTopics() {
-        try {
-            ListTopicsResult res = getAdminClient().listTopics();
-            return res.names().get();
-        } catch( Exception e ) {
-            logger.error("Could not retrieve topics due to ", e);
-            return Collections.emptyList();
-        }
+        return getMetadataCache().get( MetadataCache.Kind.TOPICS ).all();
     }
 
     public Collection<String> getGroups() {
-        ListConsumerGroupsResult res = getAdminClient().listConsumerGroups();
-        try {
-            return res.all().get().stream().map(ConsumerGroupListing::groupId).collect(Collectors.toList());
-        } catch(Exception e) {
-            logger.error("Could not retrieve consumer groups due to ", e);
-            return Collections.emptyList();
-        }
+        return getMetadataCache().get( MetadataCache.Kind.GROUPS ).all();
     }
 
     public Collection<String> getBrokers() {
-        try {
-            Collection<Node> nodes = getAdminClient().describeCluster().nodes().get();
-            return nodes.stream().map(Node::idString).collect(Collectors.toList());
-        } catch( Exception e ) {
-            logger.error("Could not retrieve brokers due to ", e);
-            return Collections.emptyList();
-        }
+        return getMetadataCache().get( MetadataCache.Kind.BROKERS ).all();
+    }
+
+    protected Completer topicCompleter() {
+        return new MetadataCompleter( this::getMetadataCache, MetadataCache.Kind.TOPICS );
+    }
+
+    protected Completer groupCompleter() {
+        return new MetadataCompleter( this::getMetadataCache, MetadataCache.Kind.GROUPS );
+    }
+
+    protected Completer brokerCompleter() {
+        return new MetadataCompleter( this::getMetadataCache, MetadataCache.Kind.BROKERS );
     }
 
     public Map<ConfigResource, Config> getConfigFor(ConfigResource.Type type, String name ) throws ExecutionException, InterruptedException {
@@ -104,6 +116,26 @@ public abstract class ShellCommand {
         return configResult.all().get();
     }
 
+    /**
+     * Expands a glob using * and ? against the given names.  A pattern without wildcards is returned as is,
+     * even when it isn't one of the names, so a name missing from the cache can still be looked up.
+     */
+    protected Collection<String> expandGlob(String pattern, Collection<String> names) {
+        if( pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0 ) return Collections.singleton( pattern );
+        StringBuilder regex = new StringBuilder();
+        for( char c : pattern.toCharArray() ) {
+            if( c == '*' ) {
+                regex.append(".*");
+            } else if( c == '?' ) {
+                regex.append('.');
+            } else {
+                regex.append( Pattern.quote( String.valueOf(c) ) );
+            }
+        }
+        Pattern compiled = Pattern.compile( regex.toString() );
+        return names.stream().filter( name -> compiled.matcher( name ).matches() ).sorted().collect(Collectors.toList());
+    }
+
     protected Boolean hasOption(List<String> words, String option) {
         OptionalInt optionPresent = IntStream.range(2, words.size())
                 .filter((i) -> words.get(i).equalsIgnoreCase(option))
@@ -119,6 +151,19 @@ public abstract class ShellCommand {
                 .findFirst();
     }
 
+    /**
+     * Parses a timestamp given either as epoch milliseconds, an ISO-8601 instant (2021-06-01T10:15:30Z), or
+     * an ISO-8601 local date time (2021-06-01T10:15:30) which is taken to be in the system time zone.
+     */
+    protected static long parseTimestamp(String value) {
+        if( value.chars().allMatch( Character::isDigit ) ) return Long.parseLong( value );
+        try {
+            return Instant.parse( value ).toEpochMilli();
+        } catch( DateTimeParseException ex ) {
+            return LocalDateTime.parse( value ).atZone( ZoneId.systemDefault() ).toInstant().toEpochMilli();
+        }
+    }
+
     protected Collection<ConsumerGroupListing> getConsumerGroupListings() throws InterruptedException, ExecutionException {
         ListConsumerGroupsResult result = getAdminClient().listConsumerGroups();
         return result.all().get();
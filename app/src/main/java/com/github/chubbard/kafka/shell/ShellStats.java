@@ -0,0 +1,112 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The shell's own timings, shown by the stats command and the status line.  Every command run in the
+ * foreground or as a job is timed, and consume splits each round into the time spent in poll, waiting on
+ * the broker and the network, and the time spent formatting and writing what it returned.  Times are
+ * kept in microseconds.
+ *
+ * Consumers register themselves with {@link #watch(Consumer)} while they're reading so their own client
+ * metrics, fetch latency, bytes consumed and lag, can be shown alongside.
+ */
+public class ShellStats {
+
+    private final Map<String,LatencyHistogram> commands = new ConcurrentSkipListMap<>();
+    private final LatencyHistogram poll = new LatencyHistogram();
+    private final LatencyHistogram format = new LatencyHistogram();
+    private final AtomicLong recordsFetched = new AtomicLong();
+    private final Set<Consumer<?,?>> watched = ConcurrentHashMap.newKeySet();
+
+    public void recordCommand(String verb, long nanos) {
+        commands.computeIfAbsent( verb, v -> new LatencyHistogram() ).record( TimeUnit.NANOSECONDS.toMicros( nanos ) );
+    }
+
+    /**
+     * Records one call to poll and how many records it returned.
+     */
+    public void recordPoll(long nanos, int records) {
+        poll.record( TimeUnit.NANOSECONDS.toMicros( nanos ) );
+        recordsFetched.addAndGet( records );
+    }
+
+    /**
+     * Records formatting and writing out the records returned by one poll.
+     */
+    public void recordFormat(long nanos) {
+        format.record( TimeUnit.NANOSECONDS.toMicros( nanos ) );
+    }
+
+    public Map<String,LatencyHistogram> getCommands() {
+        return commands;
+    }
+
+    public LatencyHistogram getPoll() {
+        return poll;
+    }
+
+    public LatencyHistogram getFormat() {
+        return format;
+    }
+
+    public long getRecordsFetched() {
+        return recordsFetched.get();
+    }
+
+    /**
+     * Shows the consumer's metrics until it's passed to {@link #unwatch(Consumer)}, which has to happen
+     * before it's closed.
+     */
+    public void watch(Consumer<?,?> consumer) {
+        watched.add( consumer );
+    }
+
+    public void unwatch(Consumer<?,?> consumer) {
+        watched.remove( consumer );
+    }
+
+    public Collection<Consumer<?,?>> getWatched() {
+        return watched;
+    }
+
+    public void reset() {
+        commands.clear();
+        poll.reset();
+        format.reset();
+        recordsFetched.set(0);
+    }
+
+    /**
+     * Picks the client wide value of each named metric, skipping the per topic, partition and node ones
+     * that share its name.  Metrics that aren't numbers or aren't present are left out.
+     *
+     * @return the values by metric name in the order the names were given.
+     */
+    public static Map<String,Double> clientMetrics(Map<MetricName,? extends Metric> metrics, Collection<String> names) {
+        Map<String,Double> values = new LinkedHashMap<>();
+        for( Map.Entry<MetricName,? extends Metric> e : metrics.entrySet() ) {
+            MetricName name = e.getKey();
+            if( !names.contains( name.name() ) || !isClientWide( name ) ) continue;
+            Object value = e.getValue().metricValue();
+            if( value instanceof Number && !Double.isNaN( ((Number) value).doubleValue() ) ) {
+                values.put( name.name(), ((Number) value).doubleValue() );
+            }
+        }
+        Map<String,Double> ordered = new LinkedHashMap<>();
+        names.forEach( n -> { if( values.containsKey( n ) ) ordered.put( n, values.get( n ) ); } );
+        return ordered;
+    }
+
+    private static boolean isClientWide(MetricName name) {
+        return name.tags().keySet().stream().allMatch( "client-id"::equals );
+    }
+}
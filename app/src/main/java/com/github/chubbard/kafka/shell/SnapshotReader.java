@@ -0,0 +1,121 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a snapshot written by {@link SnapshotWriter} through a read only memory mapped window.  Keys,
+ * values and header values are returned as slices of the mapping so nothing is copied until the producer
+ * serializes them.  A record is only valid until the next call to {@link #next()} since the window may
+ * move.
+ */
+public class SnapshotReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+
+    public SnapshotReader(Path path) throws IOException {
+        this.channel = FileChannel.open( path, StandardOpenOption.READ );
+        this.size = channel.size();
+        map( 0, 0 );
+        byte[] magic = new byte[ SnapshotWriter.MAGIC.length ];
+        if( size < magic.length + 1 ) throw new IOException( path + " is not a topic snapshot." );
+        window.get( magic );
+        if( !Arrays.equals( magic, SnapshotWriter.MAGIC ) ) throw new IOException( path + " is not a topic snapshot." );
+        byte version = window.get();
+        if( version != SnapshotWriter.VERSION ) throw new IOException( "Unsupported snapshot version " + version );
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getPosition() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * @return the next record or null at the end of the file.
+     */
+    public SnapshotRecord next() throws IOException {
+        if( getPosition() + 4 > size ) return null;
+        ensure( 4 );
+        int length = window.getInt();
+        ensure( length );
+
+        int partition = window.getInt();
+        long offset = window.getLong();
+        long timestamp = window.getLong();
+        byte timestampType = window.get();
+        int headerCount = window.getInt();
+        List<Header> headers = new ArrayList<>( headerCount );
+        for( int i = 0; i < headerCount; i++ ) {
+            byte[] key = new byte[ window.getShort() ];
+            window.get( key );
+            ByteBuffer value = slice();
+            headers.add( new RecordHeader( ByteBuffer.wrap( key ), value ) );
+        }
+        ByteBuffer key = slice();
+        ByteBuffer value = slice();
+        return new SnapshotRecord( partition, offset, timestamp, timestampType, headers, key, value );
+    }
+
+    private ByteBuffer slice() {
+        int length = window.getInt();
+        if( length < 0 ) return null;
+        ByteBuffer slice = window.slice();
+        slice.limit( length );
+        window.position( window.position() + length );
+        return slice;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if( window.remaining() >= bytes ) return;
+        long position = getPosition();
+        if( position + bytes > size ) throw new IOException( "Snapshot is truncated at byte " + position );
+        map( position, bytes );
+    }
+
+    private void map(long position, int atLeast) throws IOException {
+        windowStart = position;
+        window = channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( Math.max( SnapshotWriter.WINDOW_SIZE, atLeast ), size - position ) );
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static class SnapshotRecord {
+        public final int partition;
+        public final long offset;
+        public final long timestamp;
+        public final byte timestampType;
+        public final List<Header> headers;
+        public final ByteBuffer key;
+        public final ByteBuffer value;
+
+        SnapshotRecord(int partition, long offset, long timestamp, byte timestampType, List<Header> headers, ByteBuffer key, ByteBuffer value) {
+            this.partition = partition;
+            this.offset = offset;
+            this.timestamp = timestamp;
+            this.timestampType = timestampType;
+            this.headers = headers;
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes records to a topic snapshot file through a sliding memory mapped window.  The file starts with
+ * the {@link #MAGIC} bytes and a version, followed by length prefixed records:
+ *
+ * <pre>
+ *     int   length of the rest of the record
+ *     int   partition
+ *     long  offset
+ *     long  timestamp
+ *     byte  timestamp type id
+ *     int   header count, then for each header
+ *           short key length, key (UTF-8), int value length or -1 for null, value
+ *     int   key length or -1 for null, key
+ *     int   value length or -1 for null, value
+ * </pre>
+ *
+ * Keys, values and headers are copied as raw bytes so binary keys and headers survive the round trip.
+ */
+public class SnapshotWriter implements Closeable {
+
+    public static final byte[] MAGIC = { 'K', 'S', 'N', 'P' };
+    public static final byte VERSION = 1;
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private long records = 0;
+
+    public SnapshotWriter(Path path) throws IOException {
+        this.channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING );
+        this.window = channel.map( FileChannel.MapMode.READ_WRITE, 0, WINDOW_SIZE );
+        window.put( MAGIC ).put( VERSION );
+    }
+
+    public void write(ConsumerRecord<byte[],byte[]> rec) throws IOException {
+        int length = 4 + 8 + 8 + 1 + 4 + sizeOf( rec.key() ) + sizeOf( rec.value() );
+        int headerCount = 0;
+        for( Header header : rec.headers() ) {
+            length += 2 + header.key().getBytes(StandardCharsets.UTF_8).length + sizeOf( header.value() );
+            headerCount++;
+        }
+        ensure( 4 + length );
+
+        window.putInt( length )
+                .putInt( rec.partition() )
+                .putLong( rec.offset() )
+                .putLong( rec.timestamp() )
+                .put( (byte) rec.timestampType().id )
+                .putInt( headerCount );
+        for( Header header : rec.headers() ) {
+            byte[] key = header.key().getBytes(StandardCharsets.UTF_8);
+            window.putShort( (short) key.length ).put( key );
+            putBytes( header.value() );
+        }
+        putBytes( rec.key() );
+        putBytes( rec.value() );
+        records++;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    public long getBytesWritten() {
+        return windowStart + window.position();
+    }
+
+    private static int sizeOf(byte[] data) {
+        return 4 + (data != null ? data.length : 0);
+    }
+
+    private void putBytes(byte[] data) {
+        if( data == null ) {
+            window.putInt( -1 );
+        } else {
+            window.putInt( data.length ).put( data );
+        }
+    }
+
+    /**
+     * Slides the window forward to the current position when the next write doesn't fit in what's left.
+     */
+    private void ensure(int bytes) throws IOException {
+        if( window.remaining() >= bytes ) return;
+        windowStart += window.position();
+        window.force();
+        window = channel.map( FileChannel.MapMode.READ_WRITE, windowStart, Math.max( WINDOW_SIZE, bytes ) );
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            window.force();
+            channel.truncate( getBytesWritten() );
+        } finally {
+            channel.close();
+        }
+    }
+}
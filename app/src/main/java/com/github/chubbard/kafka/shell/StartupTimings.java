@@ -0,0 +1,43 @@
+package com.github.chubbard.kafka.shell;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long after the JVM started each startup phase finished, printed with --timings.  Phases
+ * finishing in the background, like the admin client connecting, are recorded whenever they complete so
+ * the report shows what happened before and after the first prompt.
+ */
+public class StartupTimings {
+
+    private final long processStart = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse( System.currentTimeMillis() );
+    private final List<String> phases = new ArrayList<>();
+    private final List<Long> times = new ArrayList<>();
+    private volatile boolean enabled = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized void mark(String phase) {
+        phases.add( phase );
+        times.add( System.currentTimeMillis() - processStart );
+    }
+
+    public synchronized String report() {
+        StringBuilder report = new StringBuilder("Startup timings (ms since the JVM started):");
+        long previous = 0;
+        for( int i = 0; i < phases.size(); i++ ) {
+            report.append( String.format("%n  %-24s %,7d  (+%,d)", phases.get(i), times.get(i), times.get(i) - previous) );
+            previous = times.get(i);
+        }
+        return report.toString();
+    }
+}
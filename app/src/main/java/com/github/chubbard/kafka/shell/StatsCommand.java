@@ -0,0 +1,99 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class StatsCommand extends ShellCommand {
+
+    // fetch latency is the broker's round trip, io-wait-ratio the share of time the client sat waiting on
+    // the network, poll-idle-ratio-avg the share spent outside poll, i.e. formatting and writing
+    static final List<String> CONSUMER_METRICS = Arrays.asList(
+            "records-consumed-rate", "bytes-consumed-rate", "fetch-rate", "fetch-latency-avg", "fetch-latency-max",
+            "fetch-size-avg", "records-per-request-avg", "records-lag-max", "io-wait-ratio", "poll-idle-ratio-avg" );
+    static final List<String> ADMIN_METRICS = Arrays.asList(
+            "request-rate", "response-rate", "incoming-byte-rate", "outgoing-byte-rate", "io-wait-ratio", "connection-count" );
+
+    public StatsCommand(App app) {
+        super(app);
+
+        help = String.format(String.join("%n%1$15s", Arrays.asList(
+                "[reset|status <on|off>]",
+                "Shows how long each command took, poll and format latency for consume and the",
+                "client metrics of the admin client and any consumer reading right now.",
+                "Poll time is the broker and network, format time is the shell writing records.",
+                "status on keeps fetch throughput and latency on a line at the bottom of the terminal.")
+        ), "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "stats";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("stats",
+                        node("reset"),
+                        node("status", node("on", "off"))
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        ShellStats stats = app.getStats();
+        if( words.size() > 1 && words.get(1).equalsIgnoreCase("reset") ) {
+            stats.reset();
+            println("Stats reset.");
+            return;
+        }
+        if( words.size() > 1 && words.get(1).equalsIgnoreCase("status") ) {
+            boolean enabled = words.size() < 3 || !words.get(2).equalsIgnoreCase("off");
+            if( !app.setStatusLine( enabled ) ) println("This terminal can't show a status line.");
+            return;
+        }
+
+        printf("%-20s %8s %10s %10s %10s %10s %10s%n", "TIMING (ms)", "COUNT", "MEAN", "P50", "P90", "P99", "MAX");
+        for( Map.Entry<String,LatencyHistogram> entry : stats.getCommands().entrySet() ) {
+            printTiming( entry.getKey(), entry.getValue() );
+        }
+        printTiming( "consume poll", stats.getPoll() );
+        printTiming( "consume format", stats.getFormat() );
+        printf("Records fetched: %,d%n", stats.getRecordsFetched());
+
+        for( Consumer<?,?> consumer : stats.getWatched() ) {
+            try {
+                printMetrics( "Consumer", ShellStats.clientMetrics( consumer.metrics(), CONSUMER_METRICS ) );
+            } catch( IllegalStateException e ) {
+                // finished and handed back to the pool while we were looking
+            }
+        }
+        AdminClient admin = getAdminClient();
+        if( admin != null ) printMetrics( "Admin client " + app.getSession().getProfile(), ShellStats.clientMetrics( admin.metrics(), ADMIN_METRICS ) );
+    }
+
+    private void printTiming(String name, LatencyHistogram histogram) {
+        if( histogram.getCount() == 0 ) return;
+        printf("%-20s %,8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(), histogram.getMean() / 1000,
+                histogram.getPercentile( 50 ) / 1000.0, histogram.getPercentile( 90 ) / 1000.0,
+                histogram.getPercentile( 99 ) / 1000.0, histogram.getMax() / 1000.0);
+    }
+
+    private void printMetrics(String title, Map<String,Double> metrics) {
+        printf("%n%s%n", title);
+        println("-----------------------------------");
+        metrics.forEach( (name, value) -> printf("%-25s %,15.2f%n", name, value) );
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedString;
+import org.jline.utils.InfoCmp;
+import org.jline.utils.Status;
+
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a line at the bottom of the terminal showing the records and bytes fetched per second and the
+ * poll and format latencies, redrawn once a second.  Only terminals that support a status area can show
+ * it, a dumb terminal can't.
+ */
+public class StatusLine implements AutoCloseable {
+
+    private final Status status;
+    private final ShellStats stats;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor( r -> {
+        Thread thread = new Thread( r, "status-line" );
+        thread.setDaemon( true );
+        return thread;
+    });
+    private long lastRecords;
+    private long lastTick;
+
+    private StatusLine(Status status, ShellStats stats) {
+        this.status = status;
+        this.stats = stats;
+        this.lastRecords = stats.getRecordsFetched();
+        this.lastTick = System.nanoTime();
+        ticker.scheduleAtFixedRate( this::redraw, 0, 1, TimeUnit.SECONDS );
+    }
+
+    /**
+     * @return the status line, or null when the terminal can't show one.
+     */
+    public static StatusLine start(Terminal terminal, ShellStats stats) {
+        if( !isSupported( terminal ) ) return null;
+        Status status = Status.getStatus( terminal, true );
+        return status != null ? new StatusLine( status, stats ) : null;
+    }
+
+    /**
+     * JLine hands out a Status for any terminal, even a dumb one where it draws nothing, so check for the
+     * scroll region and cursor movement it needs to keep a line at the bottom.
+     */
+    static boolean isSupported(Terminal terminal) {
+        if( terminal == null || terminal.getType() == null || terminal.getType().startsWith( Terminal.TYPE_DUMB ) ) return false;
+        return terminal.getStringCapability( InfoCmp.Capability.change_scroll_region ) != null
+                && terminal.getStringCapability( InfoCmp.Capability.save_cursor ) != null
+                && terminal.getStringCapability( InfoCmp.Capability.restore_cursor ) != null
+                && terminal.getStringCapability( InfoCmp.Capability.cursor_address ) != null;
+    }
+
+    private void redraw() {
+        long now = System.nanoTime();
+        long records = stats.getRecordsFetched();
+        double seconds = (now - lastTick) / 1e9;
+        double recordRate = seconds > 0 ? (records - lastRecords) / seconds : 0;
+        lastRecords = records;
+        lastTick = now;
+
+        double bytesRate = 0;
+        for( Consumer<?,?> consumer : stats.getWatched() ) {
+            try {
+                bytesRate += ShellStats.clientMetrics( consumer.metrics(), Collections.singleton( "bytes-consumed-rate" ) )
+                        .getOrDefault( "bytes-consumed-rate", 0.0 );
+            } catch( IllegalStateException e ) {
+                // closed between listing and reading it
+            }
+        }
+        LatencyHistogram poll = stats.getPoll();
+        LatencyHistogram format = stats.getFormat();
+        status.update( Collections.singletonList( new AttributedString( String.format(
+                "fetch %,.0f rec/s %,.1f KB/s | poll p50 %.1fms p99 %.1fms | format p99 %.1fms",
+                recordRate, bytesRate / 1024, poll.getPercentile( 50 ) / 1000.0, poll.getPercentile( 99 ) / 1000.0,
+                format.getPercentile( 99 ) / 1000.0) ) ) );
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        try {
+            ticker.awaitTermination( 1, TimeUnit.SECONDS );
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+        status.update( Collections.emptyList() );
+    }
+}
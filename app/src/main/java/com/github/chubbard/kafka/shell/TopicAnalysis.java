@@ -0,0 +1,221 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * How a topic's messages, bytes and leaders are spread over its partitions and brokers.
+ * {@link #fetch(AdminClient, String)} gathers everything in two round trips: describeTopics for the
+ * partitions and their replica placement, then the earliest offsets, the latest offsets and the log dirs
+ * of every broker holding a replica, all requested at once.  The statistics are computed locally.
+ */
+public class TopicAnalysis {
+
+    private final String topic;
+    private final List<PartitionStats> partitions;
+
+    public TopicAnalysis(String topic, List<PartitionStats> partitions) {
+        this.topic = topic;
+        this.partitions = partitions;
+    }
+
+    public static CompletableFuture<TopicAnalysis> fetch(AdminClient admin, String topic) {
+        return KafkaFutures.toCompletable( admin.describeTopics( Collections.singleton( topic ) ).all() ).thenCompose( descriptions -> {
+            TopicDescription description = descriptions.get( topic );
+            List<TopicPartition> partitions = new ArrayList<>();
+            Set<Integer> brokers = new TreeSet<>();
+            for( TopicPartitionInfo info : description.partitions() ) {
+                partitions.add( new TopicPartition( topic, info.partition() ) );
+                info.replicas().forEach( node -> brokers.add( node.id() ) );
+            }
+
+            CompletableFuture<Map<TopicPartition,ListOffsetsResult.ListOffsetsResultInfo>> earliest = ConsumerLag.listOffsets( admin, partitions, OffsetSpec.earliest() );
+            CompletableFuture<Map<TopicPartition,ListOffsetsResult.ListOffsetsResultInfo>> latest = ConsumerLag.listOffsets( admin, partitions, OffsetSpec.latest() );
+            CompletableFuture<Map<Integer,Map<String,LogDirDescription>>> logDirs = KafkaFutures.toCompletable( admin.describeLogDirs( brokers ).allDescriptions() );
+
+            return KafkaFutures.allOf( Arrays.asList( earliest, latest, logDirs ) ).thenApply( ignore -> {
+                Map<TopicPartition,Map<Integer,Long>> sizes = replicaSizes( topic, logDirs.join() );
+                List<PartitionStats> stats = new ArrayList<>();
+                for( TopicPartitionInfo info : description.partitions() ) {
+                    TopicPartition tp = new TopicPartition( topic, info.partition() );
+                    int leader = info.leader() != null ? info.leader().id() : -1;
+                    Map<Integer,Long> replicaSizes = sizes.getOrDefault( tp, Collections.emptyMap() );
+                    // the leader's copy is the authoritative one, fall back to the largest replica without a leader
+                    long bytes = replicaSizes.containsKey( leader )
+                            ? replicaSizes.get( leader )
+                            : replicaSizes.values().stream().mapToLong( Long::longValue ).max().orElse( 0 );
+                    stats.add( new PartitionStats( info.partition(), leader,
+                            info.replicas().stream().map( Node::id ).collect(Collectors.toList()),
+                            earliest.join().get( tp ).offset(), latest.join().get( tp ).offset(), bytes ) );
+                }
+                return new TopicAnalysis( topic, stats );
+            });
+        });
+    }
+
+    private static Map<TopicPartition,Map<Integer,Long>> replicaSizes(String topic, Map<Integer,Map<String,LogDirDescription>> logDirs) {
+        Map<TopicPartition,Map<Integer,Long>> sizes = new HashMap<>();
+        logDirs.forEach( (broker, dirs) -> dirs.values().forEach( dir -> dir.replicaInfos().forEach( (tp, replica) -> {
+            // a future replica is a copy still being moved between log dirs
+            if( !tp.topic().equals( topic ) || replica.isFuture() ) return;
+            sizes.computeIfAbsent( tp, k -> new HashMap<>() ).merge( broker, replica.size(), Math::max );
+        })));
+        return sizes;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public List<PartitionStats> getPartitions() {
+        return partitions;
+    }
+
+    public long getTotalMessages() {
+        return partitions.stream().mapToLong( PartitionStats::getMessages ).sum();
+    }
+
+    public long getTotalBytes() {
+        return partitions.stream().mapToLong( PartitionStats::getBytes ).sum();
+    }
+
+    public Spread getMessageSpread() {
+        return new Spread( partitions.stream().mapToLong( PartitionStats::getMessages ).toArray() );
+    }
+
+    public Spread getByteSpread() {
+        return new Spread( partitions.stream().mapToLong( PartitionStats::getBytes ).toArray() );
+    }
+
+    /**
+     * @return the number of partitions each broker leads, including brokers that hold replicas but lead
+     * nothing.  Partitions without a leader are counted under -1.
+     */
+    public SortedMap<Integer,Integer> getLeadersPerBroker() {
+        SortedMap<Integer,Integer> leaders = new TreeMap<>();
+        for( PartitionStats p : partitions ) {
+            p.getReplicas().forEach( broker -> leaders.putIfAbsent( broker, 0 ) );
+            leaders.merge( p.getLeader(), 1, Integer::sum );
+        }
+        return leaders;
+    }
+
+    /**
+     * @return the number of partitions each broker would lead if leadership were spread evenly over the
+     * brokers holding replicas.
+     */
+    public double getIdealLeaders() {
+        long brokers = getLeadersPerBroker().keySet().stream().filter( id -> id >= 0 ).count();
+        return brokers == 0 ? 0 : (double) partitions.size() / brokers;
+    }
+
+    /**
+     * @return the partitions holding the most messages, busiest first.
+     */
+    public List<PartitionStats> getHottest(int count) {
+        return partitions.stream()
+                .sorted( Comparator.comparingLong( PartitionStats::getMessages ).reversed()
+                        .thenComparing( Comparator.comparingLong( PartitionStats::getBytes ).reversed() ) )
+                .limit( count )
+                .collect(Collectors.toList());
+    }
+
+    public static class PartitionStats {
+        private final int partition;
+        private final int leader;
+        private final List<Integer> replicas;
+        private final long startOffset;
+        private final long endOffset;
+        private final long bytes;
+
+        public PartitionStats(int partition, int leader, List<Integer> replicas, long startOffset, long endOffset, long bytes) {
+            this.partition = partition;
+            this.leader = leader;
+            this.replicas = replicas;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.bytes = bytes;
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        public int getLeader() {
+            return leader;
+        }
+
+        public List<Integer> getReplicas() {
+            return replicas;
+        }
+
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * @return the offsets between the log start and end.  Transaction markers and compacted away
+         * records make this an upper bound on the actual number of records.
+         */
+        public long getMessages() {
+            return Math.max( 0, endOffset - startOffset );
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Min, max, mean and how unevenly a value is spread over the partitions.
+     */
+    public static class Spread {
+        private final long min;
+        private final long max;
+        private final double mean;
+        private final double stddev;
+
+        Spread(long[] values) {
+            this.min = Arrays.stream( values ).min().orElse( 0 );
+            this.max = Arrays.stream( values ).max().orElse( 0 );
+            this.mean = Arrays.stream( values ).average().orElse( 0 );
+            this.stddev = Math.sqrt( Arrays.stream( values ).mapToDouble( v -> (v - mean) * (v - mean) ).average().orElse( 0 ) );
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        /**
+         * @return the largest partition relative to the mean, 1.0 when perfectly even.
+         */
+        public double getSkew() {
+            return mean == 0 ? 1.0 : max / mean;
+        }
+
+        /**
+         * @return the standard deviation relative to the mean, 0 when perfectly even.
+         */
+        public double getVariation() {
+            return mean == 0 ? 0 : stddev / mean;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+import org.jline.reader.impl.completer.StringsCompleter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class UseCommand extends ShellCommand {
+
+    public UseCommand(App app) {
+        super(app);
+
+        help = String.format(String.join("%n%1$15s", Arrays.asList(
+                "[profile]",
+                "Switches to a cluster opened with connect.",
+                "Without a profile lists the connected clusters.")
+        ), "");
+    }
+
+    @Override
+    public String getCommand() {
+        return "use";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("use", node( new StringsCompleter( () -> app.getSessions().keySet() ) ) )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 2 ) {
+            for( ClusterSession session : app.getSessions().values() ) {
+                printf("%s %-20s %s%n", session == app.getSession() ? "*" : " ", session.getProfile(), session.getState());
+            }
+            return;
+        }
+        ClusterSession session = app.getSessions().get( words.get(1) );
+        if( session == null ) {
+            printf("Not connected to %s, use connect %s first.%n", words.get(1), words.get(1));
+            return;
+        }
+        app.use( session );
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.common.TopicPartition;
+import org.jline.builtins.Completers;
+import org.jline.reader.Completer;
+import org.jline.reader.ParsedLine;
+import org.jline.terminal.Size;
+import org.jline.terminal.Terminal;
+import org.jline.utils.AttributedString;
+import org.jline.utils.Display;
+import org.jline.utils.InfoCmp;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.jline.builtins.Completers.TreeCompleter.node;
+
+public class WatchCommand extends ShellCommand {
+
+    public static final int DEFAULT_INTERVAL_SECONDS = 2;
+
+    public WatchCommand(App app) {
+        super(app);
+
+        help = "lag <group_name> [interval <seconds>]";
+    }
+
+    @Override
+    public String getCommand() {
+        return "watch";
+    }
+
+    @Override
+    public Completer getCompleter() {
+        return new Completers.TreeCompleter(
+                node("watch",
+                        node("lag",
+                                node(groupCompleter(),
+                                        node("interval")
+                                )
+                        )
+                )
+        );
+    }
+
+    @Override
+    public void invoke(ParsedLine line) throws ExecutionException, InterruptedException {
+        List<String> words = line.words();
+        if( words.size() < 3 || !"lag".equals(words.get(1)) ) {
+            println("Syntax error!  Usage: watch lag <group_name> [interval <seconds>]");
+            return;
+        }
+        String group = words.get(2);
+        long intervalMs = TimeUnit.SECONDS.toMillis( getOption( words, "interval" ).map(Long::parseLong).orElse((long) DEFAULT_INTERVAL_SECONDS) );
+        watchLag( group, intervalMs );
+    }
+
+    /**
+     * Redraws the lag table every interval.  Each fetch is issued when the interval comes due and the frame
+     * is labelled with when it was issued, so rates and the header describe the offsets being shown.  The
+     * display only rewrites the lines that differ from the last frame.
+     */
+    private void watchLag(String group, long intervalMs) throws ExecutionException, InterruptedException {
+        Terminal terminal = getTerminal();
+        CountDownLatch quit = new CountDownLatch(1);
+        Display display = new Display( terminal, true );
+        Map<TopicPartition,Sample> previous = new HashMap<>();
+
+        terminal.puts( InfoCmp.Capability.enter_ca_mode );
+        terminal.puts( InfoCmp.Capability.cursor_invisible );
+        try( KeyboardWatcher watcher = new KeyboardWatcher( terminal, quit::countDown ) ) {
+            while( !watcher.isQuit() ) {
+                long sampledAt = System.currentTimeMillis();
+                // quitting mid fetch abandons it, cancelling the future doesn't abort the admin client's
+                // requests, they finish or time out in the background and the result is dropped
+                List<ConsumerLag> lags = await( ConsumerLag.fetch( getAdminClient(), Collections.singleton(group) ), watcher );
+                if( lags == null ) break;
+
+                Size size = terminal.getSize();
+                display.resize( size.getRows(), size.getColumns() );
+                display.update( render( group, intervalMs, lags, sampledAt, previous, size ), -1 );
+                terminal.flush();
+
+                quit.await( Math.max( 0, intervalMs - (System.currentTimeMillis() - sampledAt) ), TimeUnit.MILLISECONDS );
+            }
+        } finally {
+            terminal.puts( InfoCmp.Capability.cursor_visible );
+            terminal.puts( InfoCmp.Capability.exit_ca_mode );
+            terminal.flush();
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future, KeyboardWatcher watcher) throws ExecutionException, InterruptedException {
+        while( !watcher.isQuit() ) {
+            try {
+                return future.get( 100, TimeUnit.MILLISECONDS );
+            } catch( TimeoutException e ) {
+                // keep waiting unless quit was pressed
+            }
+        }
+        return null;
+    }
+
+    private List<AttributedString> render(String group, long intervalMs, List<ConsumerLag> lags, long sampledAt, Map<TopicPartition,Sample> previous, Size size) {
+        List<AttributedString> lines = new ArrayList<>();
+        long totalLag = 0;
+        double totalRate = 0;
+        List<String> rows = new ArrayList<>();
+        for( ConsumerLag lag : lags ) {
+            Sample last = previous.get( lag.getPartition() );
+            double commitRate = 0, produceRate = 0;
+            if( last != null && sampledAt > last.time ) {
+                double seconds = (sampledAt - last.time) / 1000.0;
+                commitRate = (lag.getCommittedOffset() - last.committed) / seconds;
+                produceRate = (lag.getLogEndOffset() - last.end) / seconds;
+            }
+            previous.put( lag.getPartition(), new Sample( sampledAt, lag.getCommittedOffset(), lag.getLogEndOffset() ) );
+            totalLag += lag.getLag();
+            totalRate += commitRate;
+            rows.add( String.format("%-40s %9d %15d %15d %,12d %12.1f %12.1f",
+                    lag.getPartition().topic(), lag.getPartition().partition(), lag.getCommittedOffset(),
+                    lag.getLogEndOffset(), lag.getLag(), commitRate, produceRate) );
+        }
+
+        lines.add( new AttributedString( String.format("Group %s - every %,dms - sampled %s - Press Q to quit",
+                group, intervalMs, LocalTime.ofInstant( Instant.ofEpochMilli( sampledAt ), ZoneId.systemDefault() ).truncatedTo(ChronoUnit.SECONDS)) ) );
+        lines.add( new AttributedString( String.format("Total lag=%,d consuming %,.1f msg/s across %d partitions", totalLag, totalRate, lags.size()) ) );
+        lines.add( new AttributedString("") );
+        lines.add( new AttributedString( String.format("%-40s %9s %15s %15s %12s %12s %12s", "TOPIC", "PARTITION", "COMMITTED", "LOG-END", "LAG", "CONSUMED/S", "PRODUCED/S") ) );
+        int room = Math.max( 0, size.getRows() - lines.size() - 1 );
+        rows.stream().limit( room ).forEach( r -> lines.add( new AttributedString(r) ) );
+        if( rows.size() > room ) lines.add( new AttributedString( String.format("... %d more partitions", rows.size() - room) ) );
+        if( lags.isEmpty() ) lines.add( new AttributedString("No committed offsets found for " + group) );
+        return lines;
+    }
+
+    private static class Sample {
+        final long time;
+        final long committed;
+        final long end;
+
+        Sample(long time, long committed, long end) {
+            this.time = time;
+            this.committed = committed;
+            this.end = end;
+        }
+    }
+}
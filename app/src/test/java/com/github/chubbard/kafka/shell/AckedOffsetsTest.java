@@ -0,0 +1,35 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AckedOffsetsTest {
+
+    private final TopicPartition p0 = new TopicPartition("orders", 0);
+
+    @Test
+    void commitsUpToTheOldestUnackedOffset() {
+        AckedOffsets acked = new AckedOffsets();
+        for( long offset = 10; offset < 15; offset++ ) acked.sent( p0, offset );
+
+        acked.acked( p0, 10 );
+        acked.acked( p0, 12 );
+        acked.acked( p0, 13 );
+        assertEquals( 11, acked.committable().get( p0 ).offset() );
+        assertEquals( 2, acked.getPending() );
+
+        acked.acked( p0, 11 );
+        acked.acked( p0, 14 );
+        assertEquals( 15, acked.committable().get( p0 ).offset() );
+        assertEquals( 0, acked.getPending() );
+    }
+
+    @Test
+    void ignoresPartitionsWithNothingSent() {
+        AckedOffsets acked = new AckedOffsets();
+        acked.acked( p0, 3 );
+        assertTrue( acked.committable().isEmpty() );
+    }
+}
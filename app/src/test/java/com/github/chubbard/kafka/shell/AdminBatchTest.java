@@ -0,0 +1,31 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.ConfigResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdminBatchTest {
+
+    @Test
+    void refusesASecondRequestForTheSameName() {
+        AdminBatch batch = new AdminBatch();
+        assertTrue( batch.createTopic( new NewTopic( "orders", 3, (short) 1 ), "created" ) );
+        assertTrue( batch.createTopic( new NewTopic( "payments", 3, (short) 1 ), "created" ) );
+        assertTrue( batch.deleteGroup( "orders", "removed" ) );
+
+        assertFalse( batch.alterConfigs( new ConfigResource( ConfigResource.Type.TOPIC, "orders" ),
+                List.of( new AlterConfigOp( new ConfigEntry( "retention.ms", "1000" ), AlterConfigOp.OpType.SET ) ), "applied" ) );
+        assertFalse( batch.deleteTopic( "payments", "deleted" ) );
+        assertTrue( batch.alterConfigs( new ConfigResource( ConfigResource.Type.BROKER, "orders" ),
+                List.of( new AlterConfigOp( new ConfigEntry( "log.cleaner.threads", "2" ), AlterConfigOp.OpType.SET ) ), "applied" ) );
+
+        assertTrue( batch.hasTopicChanges() );
+        assertTrue( batch.hasGroupChanges() );
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AvroDecoderTest {
+
+    private static final String ORDER = "{\"type\":\"record\",\"name\":\"Order\",\"fields\":[{\"name\":\"id\",\"type\":\"long\"},{\"name\":\"sku\",\"type\":\"string\"}]}";
+
+    @TempDir
+    Path schemas;
+
+    private static byte[] frame(int id, Schema schema, long orderId, String sku) throws IOException {
+        GenericRecord order = new GenericData.Record( schema );
+        order.put( "id", orderId );
+        order.put( "sku", sku );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write( new byte[] { 0, (byte) (id >> 24), (byte) (id >> 16), (byte) (id >> 8), (byte) id } );
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder( out, null );
+        new GenericDatumWriter<GenericRecord>( schema ).write( order, encoder );
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    @Test
+    void decodesFromAvscAndRegistryResponses() throws IOException {
+        Schema schema = new Schema.Parser().parse( ORDER );
+        Files.write( schemas.resolve( "7.avsc" ), ORDER.getBytes(StandardCharsets.UTF_8) );
+        Files.write( schemas.resolve( "300.json" ), ("{\"schema\":\"" + ORDER.replace("\"", "\\\"") + "\"}").getBytes(StandardCharsets.UTF_8) );
+
+        AvroDecoder decoder = new AvroDecoder( new SchemaCache( schemas.toFile(), 10 ) );
+        assertEquals( "{\"id\": 1, \"sku\": \"abc\"}", decoder.decode( frame( 7, schema, 1, "abc" ) ).toString() );
+        assertEquals( "{\"id\": 2, \"sku\": \"xyz\"}", decoder.decode( frame( 7, schema, 2, "xyz" ) ).toString() );
+        assertEquals( "{\"id\": 3, \"sku\": \"q\"}", decoder.decode( frame( 300, schema, 3, "q" ) ).toString() );
+        assertThrows( SerializationException.class, () -> decoder.decode( frame( 8, schema, 1, "abc" ) ) );
+    }
+
+    @Test
+    void decodesOnlyFramedData() throws IOException {
+        Schema schema = new Schema.Parser().parse( ORDER );
+        Files.write( schemas.resolve( "7.avsc" ), ORDER.getBytes(StandardCharsets.UTF_8) );
+        RecordFormatter formatter = new DecodingFormatter( new JsonLinesFormatter(), new SchemaCache( schemas.toFile(), 10 ), true, true );
+        formatter.configure( new FormatOptions( Map.of( "print.key", "true" ) ) );
+
+        FormatBuffer out = new FormatBuffer( 64 );
+        formatter.writeTo( new ConsumerRecord<>( "orders", 0, 0L, "k1".getBytes(StandardCharsets.UTF_8), frame( 7, schema, 1, "abc" ) ), out );
+        assertEquals( "{\"key\":\"k1\",\"value\":{\"id\": 1, \"sku\": \"abc\"}}\n", new String( out.array(), 0, out.size(), StandardCharsets.UTF_8 ) );
+    }
+
+    @Test
+    void leavesAnUnframedNumericKeyAlone() throws IOException {
+        Schema schema = new Schema.Parser().parse( ORDER );
+        Files.write( schemas.resolve( "7.avsc" ), ORDER.getBytes(StandardCharsets.UTF_8) );
+        // what LongSerializer writes for 42: a zero first byte and 8 bytes, which looks framed
+        byte[] key = ByteBuffer.allocate( Long.BYTES ).putLong( 42 ).array();
+        assertTrue( AvroDecoder.isFramed( key ) );
+
+        RecordFormatter formatter = new DecodingFormatter( new JsonLinesFormatter(), new SchemaCache( schemas.toFile(), 10 ), false, true );
+        formatter.configure( new FormatOptions( Map.of( "print.key", "true" ) ) );
+        FormatBuffer out = new FormatBuffer( 64 );
+        formatter.writeTo( new ConsumerRecord<>( "orders", 0, 0L, key, frame( 7, schema, 1, "abc" ) ), out );
+        assertTrue( new String( out.array(), 0, out.size(), StandardCharsets.UTF_8 ).endsWith( "\"value\":{\"id\": 1, \"sku\": \"abc\"}}\n" ) );
+
+        RecordFormatter keysToo = new DecodingFormatter( new JsonLinesFormatter(), new SchemaCache( schemas.toFile(), 10 ), true, true );
+        keysToo.configure( new FormatOptions( Map.of( "print.key", "true" ) ) );
+        assertThrows( SerializationException.class, () -> keysToo.writeTo( new ConsumerRecord<>( "orders", 0, 0L, key, frame( 7, schema, 1, "abc" ) ), new FormatBuffer( 64 ) ) );
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.ParsedLine;
+import org.jline.reader.impl.DefaultParser;
+import org.jline.terminal.impl.DumbTerminal;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterFanOutTest {
+
+    static class WhereCommand extends ShellCommand implements ReadOnlyCommand {
+        WhereCommand(App app) {
+            super( app );
+        }
+
+        @Override
+        public String getCommand() {
+            return "where";
+        }
+
+        @Override
+        public void invoke(ParsedLine line) {
+            println( app.getSession().getProfile() + " " + line.words().size() );
+        }
+    }
+
+    @Test
+    void runsOncePerClusterAndPrefixesTheOutput() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        App app = new App();
+        app.terminal = new DumbTerminal( new ByteArrayInputStream( new byte[0] ), out );
+        app.addSession( new ClusterSession( "us-east", new Properties() ) );
+        app.addSession( new ClusterSession( "eu", new Properties() ) );
+
+        ParsedLine line = new DefaultParser().parse( "where " + App.ALL_CLUSTERS, 0 );
+        assertTrue( app.execute( new WhereCommand( app ), line ) );
+
+        assertEquals( "eu       eu 1%nus-east  us-east 1%n".replace( "%n", System.lineSeparator() ),
+                out.toString( StandardCharsets.UTF_8 ) );
+        assertEquals( "eu", app.getSession().getProfile() );
+    }
+
+    @Test
+    void keepsShellPropertiesAwayFromTheClients() {
+        Properties profile = new Properties();
+        profile.setProperty( "bootstrap.servers", "east:9092" );
+        profile.setProperty( "shell.metadata.ttl.ms", "1000" );
+        ClusterSession session = new ClusterSession( "us-east", profile );
+
+        assertEquals( "east:9092", session.getProperties().getProperty( "bootstrap.servers" ) );
+        assertFalse( session.getProperties().containsKey( "shell.metadata.ttl.ms" ) );
+        assertEquals( 1000, session.getMetadataCache().getTtlMs() );
+        assertEquals( "not connected", session.getState() );
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumeBoundsTest {
+
+    private final TopicPartition p0 = new TopicPartition("orders", 0);
+    private final TopicPartition p1 = new TopicPartition("orders", 1);
+
+    @Test
+    void trimsRecordsPastTheEndOffset() {
+        ConsumeBounds bounds = new ConsumeBounds( Map.of( p0, 5L, p1, 100L ), Long.MAX_VALUE );
+
+        ConsumerRecords<byte[],byte[]> kept = bounds.apply( records( Map.of( p0, range(0, 10), p1, range(0, 10) ) ) );
+
+        assertEquals( 5, kept.records(p0).size() );
+        assertEquals( 4, kept.records(p0).get(4).offset() );
+        assertEquals( 10, kept.records(p1).size() );
+        assertFalse( bounds.isDone() );
+    }
+
+    @Test
+    void stopsAtMaxMessages() {
+        ConsumeBounds bounds = new ConsumeBounds( null, 15 );
+
+        assertEquals( 10, bounds.apply( records( Map.of( p0, range(0, 10) ) ) ).count() );
+        assertFalse( bounds.isDone() );
+        assertEquals( 5, bounds.apply( records( Map.of( p0, range(10, 20) ) ) ).count() );
+        assertTrue( bounds.isDone() );
+    }
+
+    @Test
+    void toOffsetIsInclusiveAndCappedAtTheEnd() {
+        MockConsumer<byte[],byte[]> consumer = new MockConsumer<>( OffsetResetStrategy.EARLIEST );
+        consumer.updateEndOffsets( Map.of( p0, 12L, p1, 3L ) );
+
+        ConsumeBounds bounds = ConsumeBounds.resolve( consumer, List.of( p0, p1 ), null, 4L, Long.MAX_VALUE );
+        ConsumerRecords<byte[],byte[]> kept = bounds.apply( records( Map.of( p0, range(0, 20), p1, range(0, 20) ) ) );
+        assertEquals( 5, kept.records(p0).size() );
+        assertEquals( 3, kept.records(p1).size() );
+
+        // one past Long.MAX_VALUE must not wrap around to an end before everything
+        bounds = ConsumeBounds.resolve( consumer, List.of( p0, p1 ), null, Long.MAX_VALUE, Long.MAX_VALUE );
+        assertFalse( bounds.isDone() );
+        kept = bounds.apply( records( Map.of( p0, range(0, 20), p1, range(0, 20) ) ) );
+        assertEquals( 12, kept.records(p0).size() );
+        assertEquals( 3, kept.records(p1).size() );
+    }
+
+    @Test
+    void unboundedRecordsPassThrough() {
+        ConsumeBounds bounds = new ConsumeBounds( null, Long.MAX_VALUE );
+        ConsumerRecords<byte[],byte[]> records = records( Map.of( p0, range(0, 10) ) );
+
+        assertSame( records, bounds.apply( records ) );
+    }
+
+    private List<Long> range(long from, long to) {
+        return LongStream.range( from, to ).boxed().collect(Collectors.toList());
+    }
+
+    private ConsumerRecords<byte[],byte[]> records(Map<TopicPartition,List<Long>> offsets) {
+        Map<TopicPartition,List<ConsumerRecord<byte[],byte[]>>> records = new HashMap<>();
+        offsets.forEach( (tp, list) -> records.put( tp, list.stream()
+                .map( o -> new ConsumerRecord<>( tp.topic(), tp.partition(), o, new byte[0], new byte[0] ) )
+                .collect(Collectors.toList()) ) );
+        return new ConsumerRecords<>( records );
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.GroupAuthorizationException;
+import org.apache.kafka.common.errors.LeaderNotAvailableException;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerLagTest {
+
+    private final TopicPartition p0 = new TopicPartition("orders", 0);
+    private final TopicPartition p1 = new TopicPartition("orders", 1);
+
+    @Test
+    void reportsFailedGroupsAndPartitionsAndKeepsTheRest() {
+        Map<String,CompletableFuture<Map<TopicPartition,OffsetAndMetadata>>> committed = new TreeMap<>();
+        committed.put( "billing", CompletableFuture.completedFuture( Map.of( p0, new OffsetAndMetadata( 40 ), p1, new OffsetAndMetadata( 5 ) ) ) );
+        committed.put( "audit", CompletableFuture.completedFuture( Map.of( p1, new OffsetAndMetadata( 7 ) ) ) );
+        committed.put( "secret", CompletableFuture.failedFuture( new GroupAuthorizationException( "Not authorized" ) ) );
+
+        Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> earliest = Map.of(
+                p0, offset( 10 ), p1, CompletableFuture.failedFuture( new LeaderNotAvailableException( "No leader" ) ) );
+        Map<TopicPartition,CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo>> latest = Map.of(
+                p0, offset( 100 ), p1, offset( 20 ) );
+
+        ConsumerLag.Report report = ConsumerLag.collect( committed, earliest, latest );
+
+        assertEquals( 1, report.getLags().size() );
+        ConsumerLag lag = report.getLags().get(0);
+        assertEquals( "billing", lag.getGroupId() );
+        assertEquals( 60, lag.getLag() );
+        assertEquals( List.of( "group secret", "partition orders-1" ), new ArrayList<>( report.getFailures().keySet() ) );
+        assertTrue( report.getFailures().get( "partition orders-1" ) instanceof LeaderNotAvailableException );
+    }
+
+    private static CompletableFuture<ListOffsetsResult.ListOffsetsResultInfo> offset(long offset) {
+        return CompletableFuture.completedFuture( new ListOffsetsResult.ListOffsetsResultInfo( offset, -1, Optional.empty() ) );
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerPoolTest {
+
+    private final List<MockConsumer<byte[],byte[]>> created = new ArrayList<>();
+
+    private MockConsumer<byte[],byte[]> create() {
+        MockConsumer<byte[],byte[]> consumer = new MockConsumer<>( OffsetResetStrategy.EARLIEST );
+        created.add( consumer );
+        return consumer;
+    }
+
+    @Test
+    void reusesAReturnedConsumerWithItsAssignmentCleared() {
+        try( ConsumerPool pool = new ConsumerPool( ConsumerPool.DEFAULT_IDLE_MS ) ) {
+            Consumer<byte[],byte[]> first = pool.borrow( "client", this::create );
+            first.assign( Set.of( new TopicPartition("orders", 0) ) );
+            first.close();
+            assertEquals( 1, pool.getIdleCount() );
+            assertThrows( IllegalStateException.class, first::assignment );
+
+            Consumer<byte[],byte[]> second = pool.borrow( "client", this::create );
+            assertEquals( 1, created.size() );
+            assertTrue( second.assignment().isEmpty() );
+
+            Consumer<byte[],byte[]> other = pool.borrow( "other", this::create );
+            assertEquals( 2, created.size() );
+            second.close();
+            other.close();
+        }
+        assertTrue( created.stream().allMatch( MockConsumer::closed ) );
+    }
+
+    @Test
+    void closesAConsumerThatWasWokenUp() {
+        try( ConsumerPool pool = new ConsumerPool( ConsumerPool.DEFAULT_IDLE_MS ) ) {
+            Consumer<byte[],byte[]> consumer = pool.borrow( "client", this::create );
+            consumer.wakeup();
+            consumer.close();
+            assertEquals( 0, pool.getIdleCount() );
+            assertTrue( created.get(0).closed() );
+        }
+    }
+
+    @Test
+    void evictsIdleConsumers() {
+        try( ConsumerPool pool = new ConsumerPool( 0 ) ) {
+            pool.borrow( "client", this::create ).close();
+            pool.evict();
+            assertEquals( 0, pool.getIdleCount() );
+            assertTrue( created.get(0).closed() );
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.chubbard.kafka.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobTest {
+
+    @Test
+    void buffersOutputUntilAttached() throws IOException {
+        Job job = new Job( 1, "consume orders" );
+        job.getTerminal().writer().print("first ");
+        job.flush();
+        assertEquals( 6, job.getBufferedBytes() );
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        job.attach( out );
+        job.getTerminal().writer().print("second");
+        job.flush();
+        assertEquals( "first second", out.toString(StandardCharsets.UTF_8) );
+        assertEquals( 0, job.getBufferedBytes() );
+
+        job.detach();
+        job.getTerminal().writer().print("third");
+        job.flush();
+        assertEquals( 5, job.getBufferedBytes() );
+    }
+
+    @Test
+    void keepsTheMostRecentOutput() throws IOException {
+        Job job = new Job( 1, "scan orders" );
+        byte[] chunk = new byte[ Job.MAX_BUFFERED_BYTES / 4 + 1 ];
+        for( int i = 0; i < 4; i++ ) job.getTerminal().output().write( chunk );
+        assertEquals( Job.MAX_BUFFERED_BYTES, job.getBufferedBytes() );
+    }
+
+    @Test
+    void runsOnItsOwnTerminal() throws Exception {
+        JobManager jobs = new JobManager();
+        AtomicReference<Job> seen = new AtomicReference<>();
+        Job job = jobs.submit( "describe orders", () -> {
+            seen.set( Job.current() );
+            return true;
+        });
+        while( !job.isFinished() ) Thread.sleep( 10 );
+        assertSame( job, seen.get() );
+        assertEquals( Job.State.DONE, job.getState() );
+        assertNull( Job.current() );
+        jobs.shutdown();
+    }
+
+    @Test
+    void aCommandThatFailsFailsTheJob() throws Exception {
+        JobManager jobs = new JobManager();
+        Job job = jobs.submit( "purge orders", () -> false );
+        while( !job.isFinished() ) Thread.sleep( 10 );
+        assertEquals( Job.State.FAILED, job.getState() );
+        jobs.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.chubbard.kafka.shell;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for( long i = 1; i <= 10_000; i++ ) histogram.record( i );
+
+        assertEquals( 10_000, histogram.getCount() );
+        assertEquals( 10_000, histogram.getMax() );
+        assertEquals( 5_000.5, histogram.getMean(), 0.001 );
+        assertEquals( 5_000, histogram.getPercentile(50), 5_000 * 0.04 );
+        assertEquals( 9_900, histogram.getPercentile(99), 9_900 * 0.04 );
+        assertEquals( 10_000, histogram.getPercentile(100) );
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( 3 );
+        histogram.record( 7 );
+
+        assertEquals( 3, histogram.getPercentile(50) );
+        assertEquals( 7, histogram.getPercentile(99) );
+    }
+
+    @Test
+    void bucketsCoverTheWholeRange() {
+        for( long v : new long[] { 0, 31, 32, 63, 64, 1_000_000, Long.MAX_VALUE } ) {
+            long edge = LatencyHistogram.upperEdge( LatencyHistogram.indexOf( v ) );
+            assertTrue( edge >= v, "upper edge " + edge + " below " + v );
+        }
+        assertEquals( 0, new LatencyHistogram().getPercentile(99) );
+    }
+}
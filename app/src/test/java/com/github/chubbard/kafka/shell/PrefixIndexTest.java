@@ -0,0 +1,38 @@
+package com.github.chubbard.kafka.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixIndexTest {
+
+    private final PrefixIndex index = new PrefixIndex( Arrays.asList( "payments", "orders-eu", "orders", "orders-us", "audit", "ordersx", "orders-eu" ) );
+
+    @Test
+    void findsEveryNameWithThePrefix() {
+        assertEquals( Arrays.asList( "orders", "orders-eu", "orders-us", "ordersx" ), index.withPrefix("orders") );
+        assertEquals( Arrays.asList( "orders-eu", "orders-us" ), index.withPrefix("orders-") );
+        assertEquals( Collections.singletonList( "payments" ), index.withPrefix("p") );
+    }
+
+    @Test
+    void emptyPrefixReturnsEverythingSorted() {
+        List<String> all = index.withPrefix("");
+        assertEquals( 6, all.size() );
+        assertEquals( "audit", all.get(0) );
+        assertEquals( "payments", all.get(5) );
+    }
+
+    @Test
+    void missingPrefixReturnsNothing() {
+        assertTrue( index.withPrefix("zz").isEmpty() );
+        assertTrue( index.withPrefix("ordersz").isEmpty() );
+        assertTrue( index.withPrefix("a" + Character.MAX_VALUE).isEmpty() );
+        assertTrue( index.contains("audit") );
+        assertFalse( index.contains("aud") );
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordFilterTest {
+
+    @Test
+    void keyEquality() {
+        RecordFilter filter = compile("key = order-42");
+
+        assertTrue( filter.test( record("order-42", "{}") ) );
+        assertFalse( filter.test( record("order-420", "{}") ) );
+        assertFalse( filter.test( record(null, "{}") ) );
+    }
+
+    @Test
+    void valueContainsAndRegex() {
+        assertTrue( compile("value contains ERROR").test( record("k", "2021 ERROR disk full") ) );
+        assertFalse( compile("value contains ERROR").test( record("k", "2021 ERRO disk full") ) );
+        assertTrue( compile("value matches timeout\\safter\\s\\d+ms").test( record("k", "timeout after 300ms") ) );
+        assertFalse( compile("value matches ^timeout").test( record("k", "a timeout") ) );
+    }
+
+    @Test
+    void jsonPathEquality() {
+        String json = "{\"id\": 7, \"customer\": {\"name\": \"x,}\", \"id\": \"1138\"}, \"lines\": [{\"sku\": \"a\"}, {\"sku\": \"b\"}]}";
+
+        assertTrue( compile("$.customer.id = 1138").test( record("k", json) ) );
+        assertTrue( compile("value.$.id = 7").test( record("k", json) ) );
+        assertTrue( compile("$.lines[1].sku = b").test( record("k", json) ) );
+        assertFalse( compile("$.lines[2].sku exists").test( record("k", json) ) );
+        assertFalse( compile("$.customer.id = 113").test( record("k", json) ) );
+        assertFalse( compile("$.customer.id = 1138").test( record("k", "not json") ) );
+    }
+
+    @Test
+    void jsonPathMissingMember() {
+        assertFalse( compile("$.b = 1").test( record("k", "{\"a\": 1}") ) );
+        assertFalse( compile("$.b exists").test( record("k", "{}") ) );
+        assertFalse( compile("$.a = 2").test( record("k", "{\"x\": {\"a\": 2}}") ) );
+        assertFalse( compile("$.x.b = 2").test( record("k", "{\"x\": {\"a\": 2}, \"b\": 2}") ) );
+        assertTrue( compile("not $.b exists").test( record("k", "{\"a\": 1}") ) );
+    }
+
+    @Test
+    void headersTimestampsAndBooleans() {
+        ConsumerRecord<byte[],byte[]> rec = record("k", "v");
+        rec.headers().add("source", "billing".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue( compile("header.source = billing and timestamp >= 1000").test( rec ) );
+        assertFalse( compile("header.source != billing").test( rec ) );
+        assertTrue( compile("header.trace exists or key = k").test( rec ) );
+        assertTrue( compile("not header.trace exists").test( rec ) );
+        assertFalse( compile("timestamp < 1000").test( rec ) );
+    }
+
+    @Test
+    void rejectsBadClauses() {
+        assertThrows( IllegalArgumentException.class, () -> compile("body = x") );
+        assertThrows( IllegalArgumentException.class, () -> compile("key like x") );
+        assertThrows( IllegalArgumentException.class, () -> compile("key =") );
+    }
+
+    private RecordFilter compile(String clause) {
+        return RecordFilter.compile( Arrays.asList( clause.split(" ") ) );
+    }
+
+    private ConsumerRecord<byte[],byte[]> record(String key, String value) {
+        return new ConsumerRecord<>( "orders", 0, 0, 1000L, TimestampType.CREATE_TIME, 0L, 0, 0,
+                key == null ? null : key.getBytes(StandardCharsets.UTF_8),
+                value.getBytes(StandardCharsets.UTF_8),
+                new RecordHeaders(), Optional.empty() );
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordFormattersTest {
+
+    private static ConsumerRecord<byte[],byte[]> record(String key, String value) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add( new RecordHeader( "trace", "a\"b".getBytes(StandardCharsets.UTF_8) ) );
+        return new ConsumerRecord<>( "orders", 3, 42L, 1600000000000L, TimestampType.CREATE_TIME, -1L, -1, -1,
+                key == null ? null : key.getBytes(StandardCharsets.UTF_8),
+                value == null ? null : value.getBytes(StandardCharsets.UTF_8), headers, Optional.empty() );
+    }
+
+    private static String format(String name, ConsumerRecord<byte[],byte[]> record, String... flags) {
+        Map<String,Object> config = new HashMap<>();
+        for( String flag : flags ) config.put( flag, "true" );
+        RecordFormatter formatter = RecordFormatters.find( name ).get();
+        formatter.configure( new FormatOptions( config ) );
+        FormatBuffer out = new FormatBuffer( 4 );
+        formatter.writeTo( record, out );
+        formatter.close();
+        return new String( out.array(), 0, out.size(), StandardCharsets.UTF_8 );
+    }
+
+    @Test
+    void rawMatchesKafkasFormatter() {
+        String[] flags = { "print.timestamp", "print.partition", "print.offset", "print.headers", "print.key", "print.value" };
+        ConsumerRecord<byte[],byte[]> record = record( null, "h\u00e9llo" );
+        assertEquals( format( "kafka", record, flags ), format( "raw", record, flags ) );
+        assertEquals( format( "kafka", record, "print.key" ), format( "raw", record, "print.key" ) );
+        assertEquals( "CreateTime:1600000000000\tPartition:3\tOffset:42\ttrace:a\"b\tnull\th\u00e9llo\n", format( "raw", record, flags ) );
+    }
+
+    @Test
+    void jsonLinesEmbedsJsonAndEscapesText() {
+        assertEquals( "{\"offset\":42,\"key\":\"k\\t1\",\"value\":{\"id\":7}}\n",
+                format( "json-lines", record( "k\t1", "{\"id\":7}" ), "print.offset", "print.key", "print.value" ) );
+        assertEquals( "{\"headers\":{\"trace\":\"a\\\"b\"},\"key\":null,\"value\":\"{\\n}\"}\n",
+                format( "json-lines", record( null, "{\n}" ), "print.headers", "print.key", "print.value" ) );
+    }
+
+    @Test
+    void csvQuotesOnlyWhenNeeded() {
+        assertEquals( "3,42,\"trace:a\"\"b\",,\"x,y\"\n",
+                format( "csv", record( null, "x,y" ), "print.partition", "print.offset", "print.headers", "print.key", "print.value" ) );
+    }
+
+    @Test
+    void hexEncodesKeysAndValues() {
+        ConsumerRecord<byte[],byte[]> record = new ConsumerRecord<>( "orders", 0, 0L, new byte[] { 0x01 }, new byte[] { (byte) 0xca, (byte) 0xfe } );
+        assertEquals( "01\tcafe\n", format( "hex", record, "print.key", "print.value" ) );
+    }
+
+    @Test
+    void appendsNumbersWithoutStrings() {
+        FormatBuffer out = new FormatBuffer( 1 );
+        out.appendLong( 0 ).append( (byte) ' ' ).appendLong( -1234 ).append( (byte) ' ' )
+                .appendLong( Long.MAX_VALUE ).append( (byte) ' ' ).appendLong( Long.MIN_VALUE );
+        assertEquals( "0 -1234 " + Long.MAX_VALUE + " " + Long.MIN_VALUE, new String( out.array(), 0, out.size(), StandardCharsets.US_ASCII ) );
+    }
+}
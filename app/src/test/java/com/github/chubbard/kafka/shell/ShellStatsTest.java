@@ -0,0 +1,71 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.Metrics;
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.DumbTerminal;
+import org.jline.terminal.impl.ExternalTerminal;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShellStatsTest {
+
+    @Test
+    void picksClientWideMetricsInTheOrderAsked() {
+        try( Metrics metrics = new Metrics() ) {
+            String group = "consumer-fetch-manager-metrics";
+            metrics.addMetric( metrics.metricName( "records-lag-max", group, Map.of( "client-id", "c1" ) ), constant( 42 ) );
+            metrics.addMetric( metrics.metricName( "records-lag-max", group, Map.of( "client-id", "c1", "topic", "orders", "partition", "0" ) ), constant( 7 ) );
+            metrics.addMetric( metrics.metricName( "fetch-rate", group, Map.of( "client-id", "c1" ) ), constant( 3.5 ) );
+            metrics.addMetric( metrics.metricName( "fetch-latency-avg", group, Map.of( "client-id", "c1" ) ), constant( Double.NaN ) );
+
+            Map<String,Double> picked = ShellStats.clientMetrics( metrics.metrics(), Arrays.asList( "fetch-rate", "fetch-latency-avg", "records-lag-max" ) );
+            assertEquals( List.of( "fetch-rate", "records-lag-max" ), List.copyOf( picked.keySet() ) );
+            assertEquals( 42.0, picked.get( "records-lag-max" ) );
+            assertEquals( 3.5, picked.get( "fetch-rate" ) );
+        }
+    }
+
+    @Test
+    void splitsPollFromFormatTime() {
+        ShellStats stats = new ShellStats();
+        stats.recordPoll( 2_000_000, 500 );
+        stats.recordPoll( 4_000_000, 0 );
+        stats.recordFormat( 1_000_000 );
+        stats.recordCommand( "consume", 10_000_000 );
+
+        assertEquals( 500, stats.getRecordsFetched() );
+        assertEquals( 2, stats.getPoll().getCount() );
+        assertEquals( 4000, stats.getPoll().getMax() );
+        assertEquals( 1000, stats.getFormat().getMax() );
+        assertEquals( 10_000, stats.getCommands().get( "consume" ).getMax() );
+
+        stats.reset();
+        assertEquals( 0, stats.getRecordsFetched() );
+        assertTrue( stats.getCommands().isEmpty() );
+    }
+
+    @Test
+    void statusLineOnlyWhereTheTerminalCanShowIt() throws Exception {
+        try( Terminal terminal = new DumbTerminal( new ByteArrayInputStream( new byte[0] ), new ByteArrayOutputStream() ) ) {
+            assertNull( StatusLine.start( terminal, new ShellStats() ) );
+        }
+        try( Terminal terminal = new ExternalTerminal( "xterm", "xterm-256color", new ByteArrayInputStream( new byte[0] ), new ByteArrayOutputStream(), StandardCharsets.UTF_8 ) ) {
+            StatusLine status = StatusLine.start( terminal, new ShellStats() );
+            assertNotNull( status );
+            status.close();
+        }
+    }
+
+    private static Measurable constant(double value) {
+        return (config, now) -> value;
+    }
+}
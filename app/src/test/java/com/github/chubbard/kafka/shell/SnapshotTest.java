@@ -0,0 +1,76 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsKeysValuesAndHeaders() throws IOException {
+        Path file = dir.resolve("orders.snapshot");
+        byte[] binaryKey = { 0, (byte) 0xff, 42, -1 };
+        RecordHeaders headers = new RecordHeaders();
+        headers.add( new RecordHeader( "trace-id", bytes("abc") ) );
+        headers.add( new RecordHeader( "empty", null ) );
+
+        try( SnapshotWriter writer = new SnapshotWriter( file ) ) {
+            writer.write( new ConsumerRecord<>( "orders", 3, 17L, 1000L, TimestampType.CREATE_TIME, 0L, 4, 5,
+                    binaryKey, bytes("hello"), headers ) );
+            writer.write( new ConsumerRecord<>( "orders", 0, 18L, null, null ) );
+            assertEquals( 2, writer.getRecordCount() );
+        }
+
+        try( SnapshotReader reader = new SnapshotReader( file ) ) {
+            assertEquals( Files.size( file ), reader.getSize() );
+
+            SnapshotReader.SnapshotRecord first = reader.next();
+            assertEquals( 3, first.partition );
+            assertEquals( 17L, first.offset );
+            assertEquals( 1000L, first.timestamp );
+            assertArrayEquals( binaryKey, toArray( first.key ) );
+            assertEquals( "hello", new String( toArray( first.value ), StandardCharsets.UTF_8 ) );
+            assertEquals( 2, first.headers.size() );
+            assertEquals( "trace-id", first.headers.get(0).key() );
+            assertArrayEquals( bytes("abc"), first.headers.get(0).value() );
+            assertNull( first.headers.get(1).value() );
+
+            SnapshotReader.SnapshotRecord second = reader.next();
+            assertEquals( 18L, second.offset );
+            assertNull( second.key );
+            assertNull( second.value );
+
+            assertNull( reader.next() );
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path file = Files.write( dir.resolve("other.txt"), bytes("not a snapshot") );
+        assertThrows( IOException.class, () -> new SnapshotReader( file ) );
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] data = new byte[ buffer.remaining() ];
+        buffer.duplicate().get( data );
+        return data;
+    }
+}
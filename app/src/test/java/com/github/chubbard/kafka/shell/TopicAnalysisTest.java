@@ -0,0 +1,44 @@
+package com.github.chubbard.kafka.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicAnalysisTest {
+
+    private final TopicAnalysis analysis = new TopicAnalysis( "orders", List.of(
+            new TopicAnalysis.PartitionStats( 0, 1, List.of( 1, 2 ), 0, 100, 1_000 ),
+            new TopicAnalysis.PartitionStats( 1, 1, List.of( 1, 3 ), 50, 150, 1_000 ),
+            new TopicAnalysis.PartitionStats( 2, 1, List.of( 1, 2 ), 0, 700, 9_000 ),
+            new TopicAnalysis.PartitionStats( 3, 2, List.of( 2, 3 ), 100, 200, 1_000 ) ) );
+
+    @Test
+    void measuresSkewAcrossPartitions() {
+        assertEquals( 1_000, analysis.getTotalMessages() );
+        TopicAnalysis.Spread messages = analysis.getMessageSpread();
+        assertEquals( 100, messages.getMin() );
+        assertEquals( 700, messages.getMax() );
+        assertEquals( 250.0, messages.getMean(), 0.001 );
+        assertEquals( 2.8, messages.getSkew(), 0.001 );
+        assertEquals( 3.0, analysis.getByteSpread().getSkew(), 0.001 );
+    }
+
+    @Test
+    void countsLeadersIncludingBrokersThatLeadNothing() {
+        Map<Integer,Integer> expected = new TreeMap<>( Map.of( 1, 3, 2, 1, 3, 0 ) );
+        assertEquals( expected, analysis.getLeadersPerBroker() );
+        assertEquals( 4.0 / 3, analysis.getIdealLeaders(), 0.001 );
+    }
+
+    @Test
+    void ordersHottestByMessages() {
+        List<TopicAnalysis.PartitionStats> hottest = analysis.getHottest( 2 );
+        assertEquals( 2, hottest.size() );
+        assertEquals( 2, hottest.get(0).getPartition() );
+        assertEquals( 100, hottest.get(1).getMessages() );
+    }
+}
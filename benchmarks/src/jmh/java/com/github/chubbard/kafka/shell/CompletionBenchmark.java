@@ -0,0 +1,78 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.admin.MockAdminClient;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.jline.reader.Candidate;
+import org.jline.reader.ParsedLine;
+import org.jline.reader.impl.DefaultParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Topic completion over a cluster with many topics: the {@link MetadataCompleter} turning cached names
+ * into candidates, the {@link PrefixIndex} lookup underneath it, and a linear scan over the names for
+ * comparison.  Names look like orders.eu-west-1.v2.0042 so prefixes narrow the way real ones do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompletionBenchmark {
+
+    private static final String[] DOMAINS = { "orders", "payments", "shipments", "customers", "inventory", "pricing", "audit", "clicks" };
+    private static final String[] REGIONS = { "us-east-1", "us-west-2", "eu-west-1", "eu-central-1", "ap-south-1" };
+
+    @Param({"10000"})
+    int topics;
+
+    @Param({"", "orders.", "orders.eu-west-1.v2."})
+    String prefix;
+
+    private List<String> names;
+    private PrefixIndex index;
+    private MetadataCompleter completer;
+    private ParsedLine line;
+
+    @Setup
+    public void setup() {
+        names = new ArrayList<>( topics );
+        for( int i = 0; i < topics; i++ ) {
+            names.add( String.format( "%s.%s.v%d.%04d", DOMAINS[ i % DOMAINS.length ],
+                    REGIONS[ (i / DOMAINS.length) % REGIONS.length ], 1 + (i / (DOMAINS.length * REGIONS.length)) % 3, i ) );
+        }
+        index = new PrefixIndex( names );
+
+        // MockAdminClient looks brokers up by id as a list index
+        Node broker = new Node( 0, "localhost", 9092 );
+        MockAdminClient admin = new MockAdminClient( Collections.singletonList( broker ), broker );
+        List<TopicPartitionInfo> partitions = Collections.singletonList(
+                new TopicPartitionInfo( 0, broker, Collections.singletonList( broker ), Collections.singletonList( broker ) ) );
+        names.forEach( name -> admin.addTopic( false, name, partitions, Collections.emptyMap() ) );
+        MetadataCache cache = new MetadataCache( () -> admin, TimeUnit.HOURS.toMillis(1) );
+        cache.refresh( MetadataCache.Kind.TOPICS ).join();
+        completer = new MetadataCompleter( () -> cache, MetadataCache.Kind.TOPICS );
+
+        String text = "describe topic " + prefix;
+        line = new DefaultParser().parse( text, text.length() );
+    }
+
+    @Benchmark
+    public List<Candidate> complete() {
+        List<Candidate> candidates = new ArrayList<>();
+        completer.complete( null, line, candidates );
+        return candidates;
+    }
+
+    @Benchmark
+    public List<String> prefixIndex() {
+        return index.withPrefix( prefix );
+    }
+
+    @Benchmark
+    public List<String> linearScan() {
+        return names.stream().filter( name -> name.startsWith( prefix ) ).collect(Collectors.toList());
+    }
+}
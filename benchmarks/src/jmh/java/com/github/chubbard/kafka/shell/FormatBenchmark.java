@@ -0,0 +1,85 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * consume's format and write path: a poll's records formatted by the {@link RecordFormatterPool} into a
+ * {@link BufferedOutputSink} whose channel throws the bytes away.  Scores are records per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FormatBenchmark {
+
+    static final int PARTITIONS = 8;
+    static final int RECORDS_PER_PARTITION = 500;
+    static final int RECORDS = PARTITIONS * RECORDS_PER_PARTITION;
+
+    @Param({"raw", "json-lines", "csv", "kafka"})
+    String format;
+
+    @Param({"1", "4"})
+    int workers;
+
+    @Param({"512"})
+    int valueSize;
+
+    private ConsumerRecords<byte[],byte[]> batch;
+    private RecordFormatterPool pool;
+    private BufferedOutputSink sink;
+
+    @Setup
+    public void setup() {
+        batch = new RecordGenerator( 42 ).batch( "orders", PARTITIONS, RECORDS_PER_PARTITION, valueSize );
+        Map<String,Object> config = new HashMap<>();
+        config.put( "print.key", "true" );
+        config.put( "print.offset", "true" );
+        config.put( "print.timestamp", "true" );
+        config.put( "print.value", "true" );
+        FormatOptions options = new FormatOptions( config );
+        Supplier<RecordFormatter> formatter = RecordFormatters.find( format );
+        pool = new RecordFormatterPool( workers, () -> {
+            RecordFormatter instance = formatter.get();
+            instance.configure( options );
+            return instance;
+        }, true, false );
+        sink = new BufferedOutputSink( new DiscardingChannel(), null, BufferedOutputSink.DEFAULT_CAPACITY, 0, BufferedOutputSink.DEFAULT_CAPACITY );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public int format() throws Exception {
+        return pool.write( batch, sink );
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    private static class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            src.position( src.limit() );
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.chubbard.kafka.shell;
+
+import org.jline.reader.impl.DefaultParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShellCommand#getOption} and {@link ShellCommand#hasOption} on a typical consume line, one
+ * lookup at a time and all the lookups consume makes for one command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OptionParsingBenchmark {
+
+    private static final String[] OPTIONS = { "offset", "from-time", "to-time", "to-offset", "max-messages",
+            "group", "partitions", "partition", "workers", "output", "flush.ms", "flush.bytes", "timeout",
+            "max.poll.records", "key.separator", "line.separator", "headers.separator", "null.literal",
+            "key.deserializer", "value.deserializer", "headers.deserializer", "format", "decode" };
+    private static final String[] FLAGS = { "skipErrors", "interleaved", "print.timestamp", "print.key",
+            "print.headers", "print.offset", "print.partition", "print.value" };
+
+    private App app;
+    private ConsumeTopicCommand command;
+    private List<String> words;
+
+    @Setup
+    public void setup() {
+        app = new App();
+        command = new ConsumeTopicCommand( app );
+        words = new DefaultParser().parse( "consume orders offset beginning max-messages 100000 partitions 0,1,2,3 "
+                + "workers 4 print.key print.offset format json-lines skipErrors", 0 ).words();
+    }
+
+    @TearDown
+    public void tearDown() {
+        app.disconnect();
+    }
+
+    @Benchmark
+    public Object getOptionPresent() {
+        return command.getOption( words, "format" );
+    }
+
+    @Benchmark
+    public Object getOptionMissing() {
+        return command.getOption( words, "to-offset" );
+    }
+
+    @Benchmark
+    public boolean hasOption() {
+        return command.hasOption( words, "skipErrors" );
+    }
+
+    @Benchmark
+    public void consumeCommandLine(Blackhole bh) {
+        for( String option : OPTIONS ) bh.consume( command.getOption( words, option ) );
+        for( String flag : FLAGS ) bh.consume( command.hasOption( words, flag ) );
+    }
+}
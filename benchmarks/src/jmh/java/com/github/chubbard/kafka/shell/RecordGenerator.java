@@ -0,0 +1,62 @@
+package com.github.chubbard.kafka.shell;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Builds poll results that look like a busy JSON topic: string keys, one trace header and JSON order
+ * events padded out to the requested size, with offsets and timestamps increasing per partition.  The
+ * same seed always builds the same records.
+ */
+public class RecordGenerator {
+
+    private static final String[] SKUS = { "A-1001", "B-2002", "C-3003", "D-4004", "E-5005" };
+    private static final String[] STATES = { "NEW", "PAID", "SHIPPED", "DELIVERED" };
+
+    private final Random random;
+    private final long start = 1_600_000_000_000L;
+
+    public RecordGenerator(long seed) {
+        this.random = new Random( seed );
+    }
+
+    public ConsumerRecords<byte[],byte[]> batch(String topic, int partitions, int recordsPerPartition, int valueSize) {
+        Map<TopicPartition,List<ConsumerRecord<byte[],byte[]>>> records = new HashMap<>();
+        for( int p = 0; p < partitions; p++ ) {
+            List<ConsumerRecord<byte[],byte[]>> partition = new ArrayList<>( recordsPerPartition );
+            for( int i = 0; i < recordsPerPartition; i++ ) partition.add( record( topic, p, i, valueSize ) );
+            records.put( new TopicPartition( topic, p ), partition );
+        }
+        return new ConsumerRecords<>( records );
+    }
+
+    public ConsumerRecord<byte[],byte[]> record(String topic, int partition, long offset, int valueSize) {
+        int orderId = random.nextInt( 10_000_000 );
+        byte[] key = ("order-" + orderId).getBytes( StandardCharsets.UTF_8 );
+        byte[] value = value( orderId, valueSize );
+        RecordHeaders headers = new RecordHeaders();
+        headers.add( new RecordHeader( "trace-id", UUID.nameUUIDFromBytes( key ).toString().getBytes( StandardCharsets.UTF_8 ) ) );
+        return new ConsumerRecord<>( topic, partition, offset, start + offset * 10, TimestampType.CREATE_TIME, null,
+                key.length, value.length, key, value, headers, Optional.empty() );
+    }
+
+    private byte[] value(int orderId, int size) {
+        StringBuilder json = new StringBuilder( size + 64 );
+        json.append( "{\"orderId\":" ).append( orderId )
+                .append( ",\"customer\":\"c-" ).append( random.nextInt( 100_000 ) ).append( '"' )
+                .append( ",\"sku\":\"" ).append( SKUS[ random.nextInt( SKUS.length ) ] ).append( '"' )
+                .append( ",\"quantity\":" ).append( 1 + random.nextInt( 20 ) )
+                .append( ",\"amount\":" ).append( random.nextInt( 100_000 ) / 100.0 )
+                .append( ",\"state\":\"" ).append( STATES[ random.nextInt( STATES.length ) ] ).append( '"' )
+                .append( ",\"note\":\"" );
+        while( json.length() < size - 2 ) json.append( (char) ('a' + random.nextInt( 26 )) );
+        return json.append( "\"}" ).toString().getBytes( StandardCharsets.UTF_8 );
+    }
+}